@@ -0,0 +1,147 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.michaeldavidsim.ratedrps_server.config.ExecutionConfig;
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.GameState;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+import com.michaeldavidsim.ratedrps_server.model.User;
+import com.michaeldavidsim.ratedrps_server.service.EloService;
+import com.michaeldavidsim.ratedrps_server.service.UserService;
+import com.michaeldavidsim.ratedrps_server.service.UserStatsBatchLoader;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+// Sustained concurrent games on the game handler executor, platform pool vs virtual
+// threads. Each game blocks the way GameWebSocketHandler does on a cache miss: both
+// players' ratings through the real UserService and batch loader, whose Supabase
+// fetch is replaced by a non-blocking delay, then the moves and the Elo update.
+// Every game uses fresh ids so every lookup misses. Only platform runs by default;
+// on a Java 21+ JVM add -p mode=platform,virtual to compare.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final int CONCURRENT_GAMES = 2000;
+
+    @Param({"platform"})
+    public String mode;
+
+    @Param({"200"})
+    public int platformThreads;
+
+    @Param({"20"})
+    public int supabaseLatencyMs;
+
+    private final EloService eloService = new EloService();
+    private final AtomicLong userIds = new AtomicLong();
+    private ExecutorService executor;
+    private UserStatsBatchLoader batchLoader;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = mode.equals("virtual");
+        if (virtual && !ExecutionConfig.virtualThreadsAvailable()) {
+            throw new IllegalStateException("virtual mode needs a Java 21+ JVM");
+        }
+        executor = ExecutionConfig.newExecutor(virtual, "benchmark", platformThreads);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Duration latency = Duration.ofMillis(supabaseLatencyMs);
+        batchLoader = new UserStatsBatchLoader(null, registry, "http://localhost/rest/v1/users", 5, 100) {
+            @Override
+            public Flux<User> fetchUsers(List<String> ids) {
+                return Flux.fromIterable(ids)
+                    .map(ExecutionModeBenchmark::user)
+                    .delaySubscription(latency);
+            }
+        };
+        userService = new UserService(null, batchLoader, registry,
+            "http://localhost/rest/v1/users", "http://localhost/rest/v1/rpc/increment_user_stats", 10000, 300);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        batchLoader.shutdown();
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setElo(EloService.DEFAULT_RATING + ThreadLocalRandom.current().nextInt(-200, 200));
+        return user;
+    }
+
+    private String nextUserId() {
+        return new UUID(0, userIds.incrementAndGet()).toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_GAMES)
+    public void concurrentGames(Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CONCURRENT_GAMES);
+        for (int i = 0; i < CONCURRENT_GAMES; i++) {
+            int game = i;
+            executor.execute(() -> {
+                try {
+                    blackhole.consume(playGame(game));
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private int[] playGame(int game) {
+        User player1 = userService.getUserStats(nextUserId());
+        User player2 = userService.getUserStats(nextUserId());
+
+        GameSession session = new GameSession("game-" + game,
+            new GamePlayer(player1.getId(), "player1"), new GamePlayer(player2.getId(), "player2"));
+        Move[] moves = Move.values();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        session.submitMove(session.getPlayer1Id(), moves[random.nextInt(moves.length)]);
+        session.submitMove(session.getPlayer2Id(), moves[random.nextInt(moves.length)]);
+
+        GameState state = session.getState();
+        double score = switch (state.outcome()) {
+            case Move.FIRST_WINS -> 1.0;
+            case Move.SECOND_WINS -> 0.0;
+            default -> 0.5;
+        };
+        return eloService.calculateNewRatings(player1.getElo(), player2.getElo(), score);
+    }
+}
@@ -0,0 +1,49 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+import com.michaeldavidsim.ratedrps_server.service.EloService;
+
+// Both moves of one game through GameSession.submitMove, then the outcome and
+// EloService.calculateNewRatings, as handleMakeMove and resolveGame do it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameResolutionBenchmark {
+
+    private static final Move[] MOVES = Move.values();
+
+    private final EloService eloService = new EloService();
+    private final GamePlayer player1 = new GamePlayer("p1", "one");
+    private final GamePlayer player2 = new GamePlayer("p2", "two");
+
+    @Benchmark
+    public int[] resolveGame() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        GameSession game = new GameSession("game", player1, player2);
+        game.submitMove("p1", MOVES[random.nextInt(MOVES.length)]);
+        game.submitMove("p2", MOVES[random.nextInt(MOVES.length)]);
+
+        byte outcome = game.getState().outcome();
+        double player1Score = outcome == Move.FIRST_WINS ? 1.0 : outcome == Move.SECOND_WINS ? 0.0 : 0.5;
+        return eloService.calculateNewRatings(
+            EloService.DEFAULT_RATING + random.nextInt(400), EloService.DEFAULT_RATING + random.nextInt(400), player1Score);
+    }
+}
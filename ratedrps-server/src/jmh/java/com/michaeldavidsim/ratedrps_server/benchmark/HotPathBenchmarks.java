@@ -0,0 +1,38 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the hot-path benchmarks once per thread count and writes one JSON result file
+// per run to target/jmh, for comparing against a baseline build:
+//   mvn -Pjmh test-compile exec:exec -Djmh.main=com.michaeldavidsim.ratedrps_server.benchmark.HotPathBenchmarks
+// -Djmh.threads=1,4,8 picks the thread counts; a regex argument narrows the benchmarks.
+public class HotPathBenchmarks {
+
+    private static final String HOT_PATHS =
+        "(InboundDecode|Matchmaking|GameResolution|OutboundEncode)Benchmark";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : HOT_PATHS;
+        int[] threadCounts = Arrays.stream(System.getProperty("jmh.threads", "1,4").split(","))
+            .mapToInt(count -> Integer.parseInt(count.trim()))
+            .toArray();
+
+        new File("target/jmh").mkdirs();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                .include(include)
+                .threads(threads)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/hot-paths-" + threads + "t.json")
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
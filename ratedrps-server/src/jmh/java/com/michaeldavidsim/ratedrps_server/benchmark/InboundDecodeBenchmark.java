@@ -0,0 +1,68 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage;
+import com.michaeldavidsim.ratedrps_server.websocket.JsonInboundDecoder;
+
+// Inbound JSON decode: the old readValue(payload, Map.class) path against the
+// streaming JsonInboundDecoder. Run with -prof gc to see bytes allocated per message.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InboundDecodeBenchmark {
+
+    @Param({"JOIN_LOBBY", "MAKE_MOVE"})
+    public String messageType;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonInboundDecoder decoder = new JsonInboundDecoder();
+    private String payload;
+
+    @Setup
+    public void setUp() {
+        String userId = UUID.randomUUID().toString();
+        payload = messageType.equals("JOIN_LOBBY")
+            ? "{\"type\":\"JOIN_LOBBY\",\"userId\":\"" + userId + "\",\"username\":\"player_one\"}"
+            : "{\"type\":\"MAKE_MOVE\",\"userId\":\"" + userId + "\",\"gameId\":\"" + UUID.randomUUID() + "\",\"move\":\"rock\"}";
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void mapDecode(Blackhole blackhole) throws Exception {
+        Map<String, Object> message = mapper.readValue(payload, Map.class);
+        String type = (String) message.get("type");
+        blackhole.consume(message.get("userId"));
+        if (type.equals("JOIN_LOBBY")) {
+            blackhole.consume(message.get("username"));
+        } else {
+            blackhole.consume(message.get("gameId"));
+            blackhole.consume(Move.fromWireName((String) message.get("move")));
+        }
+    }
+
+    @Benchmark
+    public InboundMessage streamingDecode() throws Exception {
+        return decoder.decode(payload);
+    }
+}
@@ -0,0 +1,74 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.michaeldavidsim.ratedrps_server.matchmaking.EloBandedMatchmaker;
+import com.michaeldavidsim.ratedrps_server.matchmaking.MatchPair;
+import com.michaeldavidsim.ratedrps_server.matchmaking.MatchTicket;
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+
+// Arrivals into a lobby of fixed size, as tryMatchmake sees them. The lobby is
+// seeded with players RATING_SPACING apart; each arrival lands at a random rating and
+// either pairs (its partner is then replaced) or is cancelled, so the lobby size
+// holds steady. The gap is fixed at 100 so the seeded players never widen into each
+// other. Shared across threads, so -t measures lock contention as well.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchmakingBenchmark {
+
+    private static final int RATING_SPACING = 250;
+
+    @Param({"100", "1000", "10000"})
+    public int lobbySize;
+
+    private EloBandedMatchmaker matchmaker;
+    private final AtomicLong nextUser = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        matchmaker = new EloBandedMatchmaker(100, 0, 100);
+        for (int i = 0; i < lobbySize; i++) {
+            matchmaker.enqueue(ticket(i * RATING_SPACING));
+        }
+    }
+
+    @Benchmark
+    public Optional<MatchPair> arrival() {
+        int rating = ThreadLocalRandom.current().nextInt(lobbySize * RATING_SPACING);
+        MatchTicket arrival = ticket(rating);
+        Optional<MatchPair> pair = matchmaker.enqueue(arrival);
+        if (pair.isPresent()) {
+            MatchPair matched = pair.get();
+            MatchTicket partner = matched.first() == arrival ? matched.second() : matched.first();
+            matchmaker.enqueue(ticket(partner.rating()));
+        } else {
+            matchmaker.cancel(arrival.getUserId());
+        }
+        return pair;
+    }
+
+    private MatchTicket ticket(int rating) {
+        String userId = "user-" + nextUser.incrementAndGet();
+        return new MatchTicket(new GamePlayer(userId, userId), rating);
+    }
+}
@@ -0,0 +1,84 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+import com.michaeldavidsim.ratedrps_server.websocket.BinaryFrameCodec;
+import com.michaeldavidsim.ratedrps_server.websocket.FrameEncoder;
+import com.michaeldavidsim.ratedrps_server.websocket.JsonFrameEncoder;
+import com.michaeldavidsim.ratedrps_server.websocket.WireProtocol;
+
+// Outbound encode of LOBBY_UPDATE and GAME_UPDATE frames. Lobby counts are drawn
+// from [0, lobbySize), so large lobbies fall outside the JSON frame cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboundEncodeBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    public WireProtocol protocol;
+
+    @Param({"100", "1000", "10000"})
+    public int lobbySize;
+
+    private FrameEncoder encoder;
+    private GameSession pendingGame;
+    private GameSession finishedGame;
+
+    @Setup
+    public void setUp() {
+        encoder = protocol == WireProtocol.BINARY ? new BinaryFrameCodec() : new JsonFrameEncoder();
+
+        pendingGame = newGame();
+        pendingGame.submitMove(pendingGame.getPlayer1Id(), Move.ROCK);
+
+        finishedGame = newGame();
+        finishedGame.submitMove(finishedGame.getPlayer1Id(), Move.ROCK);
+        finishedGame.submitMove(finishedGame.getPlayer2Id(), Move.SCISSORS);
+        finishedGame.setResult(finishedGame.getPlayer1Id());
+        finishedGame.setPlayer1EloDelta(16);
+        finishedGame.setPlayer2EloDelta(-16);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> lobbyUpdate() throws Exception {
+        return encoder.lobbyUpdate(ThreadLocalRandom.current().nextInt(lobbySize));
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> gameUpdate() throws Exception {
+        return encoder.gameUpdate(pendingGame, false);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> finalGameUpdate() throws Exception {
+        return encoder.gameUpdate(finishedGame, true);
+    }
+
+    private static GameSession newGame() {
+        GameSession game = new GameSession("7f1c1a52-4a5e-4d8e-9a43-3f0b8d2b6a10",
+            new GamePlayer("0b6f8a8e-2f0a-4f55-8d1b-6b0c2f9c1d11", "player_one"),
+            new GamePlayer("5d2e7c4b-9a1f-4e3b-b6c8-1a2b3c4d5e6f", "player_two"));
+        game.setHandle(1);
+        return game;
+    }
+}
@@ -0,0 +1,56 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.michaeldavidsim.ratedrps_server.timer.HashedTimingWheel;
+
+// The per-game cost of a move deadline: schedule at match start, cancel at
+// resolution, with `pending` other deadlines already on the wheel. Flat across
+// pending sizes is the point.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimingWheelBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"0", "100000"})
+    public int pending;
+
+    private HashedTimingWheel wheel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new HashedTimingWheel("bench-timers", 100, 512, Runnable::run);
+        for (int i = 0; i < pending; i++) {
+            wheel.schedule(NOOP, 1, TimeUnit.HOURS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wheel.close();
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        return wheel.schedule(NOOP, 30, TimeUnit.SECONDS).cancel();
+    }
+}
@@ -0,0 +1,177 @@
+package com.michaeldavidsim.ratedrps_server.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+import com.michaeldavidsim.ratedrps_server.websocket.BinaryFrameCodec;
+import com.michaeldavidsim.ratedrps_server.websocket.FrameEncoder;
+import com.michaeldavidsim.ratedrps_server.websocket.JsonFrameEncoder;
+import com.michaeldavidsim.ratedrps_server.websocket.WireProtocol;
+
+// Server-side cost of one game's frames in each wire protocol: decoding both
+// players' JOIN_LOBBY and MAKE_MOVE, and encoding MATCH_FOUND, the intermediate and
+// final GAME_UPDATE and a LOBBY_UPDATE for each player. Score is time per message;
+// run with -prof gc for allocation. Bytes per game (both directions, both players)
+// are printed at setup.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireProtocolBenchmark {
+
+    private static final int MESSAGES_PER_GAME = 12;
+
+    @Param({"JSON", "BINARY"})
+    public WireProtocol protocol;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FrameEncoder encoder;
+
+    private final String player1Id = UUID.randomUUID().toString();
+    private final String player2Id = UUID.randomUUID().toString();
+    private final String gameId = UUID.randomUUID().toString();
+    private static final int HANDLE = 12345;
+
+    private String[] jsonInbound;
+    private byte[][] binaryInbound;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        encoder = protocol == WireProtocol.BINARY ? new BinaryFrameCodec() : new JsonFrameEncoder();
+
+        jsonInbound = new String[] {
+            "{\"type\":\"JOIN_LOBBY\",\"userId\":\"" + player1Id + "\",\"username\":\"player_one\"}",
+            "{\"type\":\"JOIN_LOBBY\",\"userId\":\"" + player2Id + "\",\"username\":\"player_two\"}",
+            "{\"type\":\"MAKE_MOVE\",\"userId\":\"" + player1Id + "\",\"gameId\":\"" + gameId + "\",\"move\":\"rock\"}",
+            "{\"type\":\"MAKE_MOVE\",\"userId\":\"" + player2Id + "\",\"gameId\":\"" + gameId + "\",\"move\":\"paper\"}"
+        };
+        binaryInbound = new byte[][] {
+            joinFrame("player_one"),
+            joinFrame("player_two"),
+            moveFrame(Move.ROCK),
+            moveFrame(Move.PAPER)
+        };
+
+        long bytes = 0;
+        for (int i = 0; i < 4; i++) {
+            bytes += protocol == WireProtocol.BINARY
+                ? binaryInbound[i].length
+                : jsonInbound[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+        GameSession game = newGame();
+        bytes += encoder.matchFound(game, true).getPayloadLength() + encoder.matchFound(game, false).getPayloadLength();
+        game.submitMove(player1Id, Move.ROCK);
+        bytes += 2L * encoder.gameUpdate(game, false).getPayloadLength();
+        resolve(game);
+        bytes += 2L * encoder.gameUpdate(game, true).getPayloadLength();
+        bytes += 2L * encoder.lobbyUpdate(42).getPayloadLength();
+        System.out.printf("%n%s: %d bytes per game%n", protocol, bytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_GAME)
+    public void oneGame(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < 4; i++) {
+            if (protocol == WireProtocol.BINARY) {
+                decodeBinary(ByteBuffer.wrap(binaryInbound[i]), blackhole);
+            } else {
+                decodeJson(jsonInbound[i], blackhole);
+            }
+        }
+
+        GameSession game = newGame();
+        send(encoder.matchFound(game, true), blackhole);
+        send(encoder.matchFound(game, false), blackhole);
+        game.submitMove(player1Id, Move.ROCK);
+        WebSocketMessage<?> update = encoder.gameUpdate(game, false);
+        send(update, blackhole);
+        send(update, blackhole);
+        resolve(game);
+        WebSocketMessage<?> result = encoder.gameUpdate(game, true);
+        send(result, blackhole);
+        send(result, blackhole);
+        send(encoder.lobbyUpdate(42), blackhole);
+        send(encoder.lobbyUpdate(41), blackhole);
+    }
+
+    // what GameWebSocketHandler.handleTextMessage does before dispatching
+    @SuppressWarnings("unchecked")
+    private void decodeJson(String payload, Blackhole blackhole) throws Exception {
+        Map<String, Object> message = mapper.readValue(payload, Map.class);
+        String type = (String) message.get("type");
+        blackhole.consume(type);
+        blackhole.consume(message.get("userId"));
+        if (type.equals("JOIN_LOBBY")) {
+            blackhole.consume(message.get("username"));
+        } else {
+            blackhole.consume(message.get("gameId"));
+            blackhole.consume(Move.fromWireName((String) message.get("move")));
+        }
+    }
+
+    // what GameWebSocketHandler.handleBinaryMessage does before dispatching
+    private void decodeBinary(ByteBuffer frame, Blackhole blackhole) {
+        byte type = frame.get();
+        if (type == BinaryFrameCodec.JOIN_LOBBY) {
+            blackhole.consume(BinaryFrameCodec.readString(frame));
+        } else {
+            blackhole.consume(frame.getInt());
+            blackhole.consume(Move.fromCode(frame.get()));
+        }
+    }
+
+    private void send(WebSocketMessage<?> frame, Blackhole blackhole) {
+        blackhole.consume(frame.getPayloadLength());
+    }
+
+    private GameSession newGame() {
+        GameSession game = new GameSession(gameId, new GamePlayer(player1Id, "player_one"), new GamePlayer(player2Id, "player_two"));
+        game.setHandle(HANDLE);
+        return game;
+    }
+
+    private void resolve(GameSession game) {
+        game.submitMove(player2Id, Move.PAPER);
+        game.setResult(player2Id);
+        game.setPlayer1EloDelta(-16);
+        game.setPlayer2EloDelta(16);
+    }
+
+    private static byte[] joinFrame(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(3 + name.length)
+            .put(BinaryFrameCodec.JOIN_LOBBY).putShort((short) name.length).put(name)
+            .array();
+    }
+
+    private static byte[] moveFrame(Move move) {
+        return ByteBuffer.allocate(6)
+            .put(BinaryFrameCodec.MAKE_MOVE).putInt(HANDLE).put(move.code())
+            .array();
+    }
+}
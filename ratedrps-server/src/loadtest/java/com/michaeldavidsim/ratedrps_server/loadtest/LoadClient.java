@@ -0,0 +1,134 @@
+package com.michaeldavidsim.ratedrps_server.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// One simulated player: joins the lobby, moves after a think time once matched, and
+// rejoins after every final GAME_UPDATE until the run's deadline.
+class LoadClient implements WebSocket.Listener {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String[] MOVES = {"rock", "paper", "scissors"};
+
+    private final String userId;
+    private final String token;
+    private final LoadStats stats;
+    private final ScheduledExecutorService scheduler;
+    private final long thinkTimeMs;
+    private final long deadlineNanos;
+
+    private final StringBuilder partial = new StringBuilder();
+    private WebSocket webSocket;
+    // sends must not overlap on a java.net.http WebSocket, so they are chained
+    private CompletableFuture<WebSocket> lastSend;
+    private volatile String currentGameId;
+    private volatile long joinSentNanos;
+    private volatile long moveSentNanos;
+
+    LoadClient(String userId, String token, LoadStats stats, ScheduledExecutorService scheduler,
+               long thinkTimeMs, long deadlineNanos) {
+        this.userId = userId;
+        this.token = token;
+        this.stats = stats;
+        this.scheduler = scheduler;
+        this.thinkTimeMs = thinkTimeMs;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    CompletableFuture<WebSocket> connect(HttpClient client, String url) {
+        return client.newWebSocketBuilder()
+            .buildAsync(URI.create(url + "?token=" + token), this)
+            .whenComplete((ws, error) -> {
+                if (error != null) stats.connectFailures.increment();
+            });
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        this.lastSend = CompletableFuture.completedFuture(webSocket);
+        stats.connected.increment();
+        webSocket.request(1);
+        joinLobby();
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String frame = partial.toString();
+            partial.setLength(0);
+            try {
+                handle(frame);
+            } catch (Exception e) {
+                stats.serverErrors.increment();
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (System.nanoTime() < deadlineNanos) stats.disconnects.increment();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        stats.disconnects.increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handle(String frame) throws Exception {
+        Map<String, Object> message = MAPPER.readValue(frame, Map.class);
+        String type = (String) message.get("type");
+        if (type == null) return;
+
+        switch (type) {
+            case "MATCH_FOUND" -> {
+                stats.matchFound(System.nanoTime() - joinSentNanos);
+                String gameId = (String) ((Map<String, Object>) message.get("data")).get("gameId");
+                currentGameId = gameId;
+                long think = thinkTimeMs > 0 ? ThreadLocalRandom.current().nextLong(thinkTimeMs + 1) : 0;
+                scheduler.schedule(() -> makeMove(gameId), think, TimeUnit.MILLISECONDS);
+            }
+            case "GAME_UPDATE" -> {
+                if (Boolean.TRUE.equals(message.get("isFinal"))) {
+                    stats.resolved(currentGameId, System.nanoTime() - moveSentNanos);
+                    if (System.nanoTime() < deadlineNanos) {
+                        joinLobby();
+                    } else {
+                        webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+                    }
+                }
+            }
+            case "ERROR" -> stats.serverErrors.increment();
+            default -> { }
+        }
+    }
+
+    private void joinLobby() {
+        joinSentNanos = System.nanoTime();
+        send("{\"type\":\"JOIN_LOBBY\",\"userId\":\"" + userId + "\",\"username\":\"load-" + userId.substring(0, 8) + "\"}");
+    }
+
+    private void makeMove(String gameId) {
+        moveSentNanos = System.nanoTime();
+        String move = MOVES[ThreadLocalRandom.current().nextInt(MOVES.length)];
+        send("{\"type\":\"MAKE_MOVE\",\"userId\":\"" + userId + "\",\"gameId\":\"" + gameId + "\",\"move\":\"" + move + "\"}");
+    }
+
+    private synchronized void send(String text) {
+        lastSend = lastSend.thenCompose(ws -> ws.sendText(text, true));
+    }
+}
@@ -0,0 +1,69 @@
+package com.michaeldavidsim.ratedrps_server.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Shared counters and latency samples for one load-test run.
+public class LoadStats {
+
+    final LongAdder connected = new LongAdder();
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder disconnects = new LongAdder();
+    final LongAdder serverErrors = new LongAdder();
+    final LongAdder gamesCompleted = new LongAdder();
+
+    private final Queue<Long> matchFoundNanos = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> resolutionNanos = new ConcurrentLinkedQueue<>();
+    // first player's report per game, waiting for the second
+    private final Map<String, Long> pendingResolutions = new ConcurrentHashMap<>();
+
+    void matchFound(long latencyNanos) {
+        matchFoundNanos.add(latencyNanos);
+    }
+
+    // Each player reports the time from its own move to the final GAME_UPDATE; the
+    // smaller of the two is the time from the move that completed the game.
+    void resolved(String gameId, long latencyNanos) {
+        Long other = pendingResolutions.putIfAbsent(gameId, latencyNanos);
+        if (other == null) return;
+        pendingResolutions.remove(gameId);
+        resolutionNanos.add(Math.min(other, latencyNanos));
+        gamesCompleted.increment();
+    }
+
+    void print(double elapsedSeconds, SupabaseStub stub) {
+        long games = gamesCompleted.sum();
+        System.out.printf("%nClients connected:     %d (%d failed to connect, %d dropped)%n",
+            connected.sum(), connectFailures.sum(), disconnects.sum());
+        System.out.printf("Games completed:       %d in %.1fs (%.1f games/s)%n",
+            games, elapsedSeconds, games / elapsedSeconds);
+        System.out.printf("Match-found latency:   %s%n", percentiles(matchFoundNanos));
+        System.out.printf("Resolution latency:    %s%n", percentiles(resolutionNanos));
+        System.out.printf("ERROR frames received: %d%n", serverErrors.sum());
+        if (stub != null) {
+            System.out.printf("Supabase stub:         %d injected errors%n", stub.getInjectedErrors());
+            stub.getRequests().forEach((endpoint, count) ->
+                System.out.printf("  %-40s %d%n", endpoint, count.sum()));
+        }
+    }
+
+    private static String percentiles(Queue<Long> samples) {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+        if (sorted.length == 0) return "no samples";
+        Arrays.sort(sorted);
+        return String.format("p50 %.1fms  p99 %.1fms  max %.1fms  (%d samples)",
+            millis(sorted[(int) (sorted.length * 0.50)]),
+            millis(sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))]),
+            millis(sorted[sorted.length - 1]),
+            sorted.length);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
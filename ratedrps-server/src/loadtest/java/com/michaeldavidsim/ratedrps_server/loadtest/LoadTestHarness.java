@@ -0,0 +1,133 @@
+package com.michaeldavidsim.ratedrps_server.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.michaeldavidsim.ratedrps_server.RatedrpsServerApplication;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+// End-to-end load test. By default it starts a SupabaseStub and the server in this
+// JVM, pointed at the stub, then opens `clients` WebSocket connections to /ws/game
+// with tokens signed by the server's JWT secret and plays JOIN_LOBBY -> MATCH_FOUND ->
+// MAKE_MOVE cycles until the duration is up. Pass --url and --jwt-secret to load an
+// already running server instead.
+//
+//   mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--clients=2000 --duration-seconds=60"
+//
+// Options (defaults in parentheses): clients (1000), duration-seconds (60),
+// ramp-seconds (10), think-time-ms (100), stub-latency-ms (20), stub-jitter-ms (10),
+// stub-error-rate (0.0), url, jwt-secret.
+public class LoadTestHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration-seconds", "60"));
+        long rampSeconds = Long.parseLong(options.getOrDefault("ramp-seconds", "10"));
+        long thinkTimeMs = Long.parseLong(options.getOrDefault("think-time-ms", "100"));
+
+        SupabaseStub stub = null;
+        ConfigurableApplicationContext server = null;
+        String url = options.get("url");
+        String jwtSecret = options.get("jwt-secret");
+
+        if (url == null) {
+            jwtSecret = UUID.randomUUID().toString().replace("-", "");
+            stub = new SupabaseStub(0,
+                Long.parseLong(options.getOrDefault("stub-latency-ms", "20")),
+                Long.parseLong(options.getOrDefault("stub-jitter-ms", "10")),
+                Double.parseDouble(options.getOrDefault("stub-error-rate", "0.0")));
+            stub.start();
+            server = SpringApplication.run(RatedrpsServerApplication.class,
+                "--server.port=0",
+                "--management.server.port=0",
+                "--SUPABASE_URL=" + stub.getUrl(),
+                "--JWT_SECRET=" + jwtSecret,
+                "--SERVICE_ROLE_KEY=loadtest",
+                "--outbox.path=target/loadtest/game-outbox.dat",
+                "--persistence.dead-letter-path=target/loadtest/game-dead-letters.jsonl",
+                // simulated players rejoin and move far faster than people do
+                "--ws.inbound.lobby-per-second=1000",
+                "--ws.inbound.moves-per-second=1000",
+                "--ws.inbound.frames-per-second=1000",
+                // every client connects from this machine
+                "--rate-limit.ws-handshake.permits=1000000",
+                "--logging.level.com.michaeldavidsim=WARN",
+                "--logging.level.org.springframework.security.web.FilterChainProxy=WARN");
+            url = "ws://127.0.0.1:" + server.getEnvironment().getProperty("local.server.port") + "/ws/game";
+        } else if (jwtSecret == null) {
+            throw new IllegalArgumentException("--jwt-secret is required with --url");
+        }
+
+        LoadStats stats = new LoadStats();
+        HttpClient httpClient = HttpClient.newHttpClient();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        MACSigner signer = new MACSigner(jwtSecret.getBytes(StandardCharsets.UTF_8));
+
+        System.out.printf("Connecting %d clients to %s over %ds, running for %ds%n",
+            clients, url, rampSeconds, durationSeconds);
+        List<CompletableFuture<?>> connections = new ArrayList<>(clients);
+        long rampDelayNanos = clients > 0 ? TimeUnit.SECONDS.toNanos(rampSeconds) / clients : 0;
+        for (int i = 0; i < clients; i++) {
+            String userId = UUID.randomUUID().toString();
+            LoadClient client = new LoadClient(userId, sign(signer, userId), stats, scheduler, thinkTimeMs, deadlineNanos);
+            connections.add(client.connect(httpClient, url).exceptionally(error -> null));
+            if (rampDelayNanos > 0) TimeUnit.NANOSECONDS.sleep(rampDelayNanos);
+        }
+        CompletableFuture.allOf(connections.toArray(CompletableFuture[]::new)).join();
+
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) TimeUnit.NANOSECONDS.sleep(remaining);
+        // let games already in flight finish
+        TimeUnit.SECONDS.sleep(2);
+
+        stats.print((System.nanoTime() - startNanos) / 1e9, stub);
+
+        scheduler.shutdownNow();
+        if (server != null) server.close();
+        if (stub != null) stub.close();
+        System.exit(0);
+    }
+
+    private static String sign(MACSigner signer, String userId) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject(userId)
+            .issueTime(new Date())
+            .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,165 @@
+package com.michaeldavidsim.ratedrps_server.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Local stand-in for the Supabase endpoints the server calls: user reads and avatar
+// updates, match inserts, the stats RPC and storage objects. Every request waits
+// latency +/- jitter and fails with a 503 at errorRate. Users are made up on read,
+// with a rating derived from their id so repeat reads agree.
+public class SupabaseStub implements AutoCloseable {
+
+    private static final byte[] AVATAR = new byte[2048];
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "supabase-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    public SupabaseStub(int port, long latencyMs, long jitterMs, double errorRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public Map<String, LongAdder> getRequests() {
+        return requests;
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String endpoint = endpointOf(path);
+            requests.computeIfAbsent(method + " " + endpoint, k -> new LongAdder()).increment();
+
+            delay();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.increment();
+                respond(exchange, 503, "{\"message\":\"injected failure\"}");
+                return;
+            }
+
+            switch (endpoint) {
+                case "users" -> {
+                    if (method.equals("GET")) {
+                        respond(exchange, 200, usersFor(exchange.getRequestURI().getRawQuery()));
+                    } else {
+                        respond(exchange, 204, null);
+                    }
+                }
+                case "game_matches" -> respond(exchange, 201, null);
+                case "rpc/increment_user_stats" -> respond(exchange, 204, null);
+                case "storage" -> {
+                    if (method.equals("GET")) {
+                        exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+                        exchange.sendResponseHeaders(200, AVATAR.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(AVATAR);
+                        }
+                    } else {
+                        respond(exchange, 200, "{\"Key\":\"" + path + "\"}");
+                    }
+                }
+                default -> respond(exchange, 404, "{\"message\":\"not found\"}");
+            }
+        }
+    }
+
+    private static String endpointOf(String path) {
+        if (path.startsWith("/storage/v1/")) return "storage";
+        if (path.startsWith("/rest/v1/")) return path.substring("/rest/v1/".length());
+        return path;
+    }
+
+    private void delay() {
+        long delay = latencyMs;
+        if (jitterMs > 0) delay += ThreadLocalRandom.current().nextLong(-jitterMs, jitterMs + 1);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // id=eq.<id> or id=in.(<id>,<id>,...)
+    private static String usersFor(String query) {
+        String ids = "";
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("id=eq.")) ids = param.substring("id=eq.".length());
+                else if (param.startsWith("id=in.(")) ids = param.substring("id=in.(".length(), param.length() - 1);
+            }
+        }
+
+        StringBuilder json = new StringBuilder("[");
+        for (String id : ids.split(",")) {
+            if (id.isEmpty()) continue;
+            if (json.length() > 1) json.append(',');
+            int elo = 900 + Math.floorMod(id.hashCode(), 200);
+            json.append("{\"id\":\"").append(id)
+                .append("\",\"username\":\"user-").append(id, 0, Math.min(8, id.length()))
+                .append("\",\"elo\":").append(elo)
+                .append(",\"wins\":0,\"losses\":0,\"draws\":0}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.michaeldavidsim.ratedrps_server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RatedrpsServerApplication {
 
 	public static void main(String[] args) {
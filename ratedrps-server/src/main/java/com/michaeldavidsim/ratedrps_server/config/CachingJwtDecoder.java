@@ -0,0 +1,78 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Remembers tokens the delegate has already verified, so a client reconnecting or
+// calling the API repeatedly with the same token skips the signature check and claim
+// parsing. Entries are keyed by a SHA-256 of the whole token, signature included, so
+// any altered token misses and goes through the delegate; a hit must also carry the
+// identical token and is only served while the token's exp is still in the future,
+// without the clock skew the delegate allows. Tokens that fail verification or carry
+// no exp are never cached.
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> verified;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maxSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(Expiry.<String, Jwt>creating((key, jwt) -> untilExpiry(jwt, Instant.now())))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "verifiedTokens");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        Instant now = Instant.now();
+        String key = hash(token);
+
+        Jwt cached = verified.getIfPresent(key);
+        if (cached != null && cached.getTokenValue().equals(token) && isLive(cached, now)) {
+            return cached;
+        }
+
+        Jwt jwt = delegate.decode(token);
+        if (isLive(jwt, now)) {
+            verified.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    private static boolean isLive(Jwt jwt, Instant now) {
+        Instant expiresAt = jwt.getExpiresAt();
+        return expiresAt != null && now.isBefore(expiresAt);
+    }
+
+    private static Duration untilExpiry(Jwt jwt, Instant now) {
+        Instant expiresAt = jwt.getExpiresAt();
+        return expiresAt != null ? Duration.between(now, expiresAt) : Duration.ZERO;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.michaeldavidsim.ratedrps_server.timer.HashedTimingWheel;
+
+// Opt-in virtual-thread mode. spring.threads.virtual.enabled moves Tomcat (REST and
+// WebSocket frames) and the scheduler onto virtual threads when running on Java 21+;
+// the same flag switches the executor the game handler hands work off to. The build
+// targets 17, so virtual threads are looked up reflectively and the platform pool is
+// used when the runtime does not have them.
+@Configuration
+public class ExecutionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${execution.platform-threads:200}")
+    private int platformThreads;
+
+    @Value("${ws.outbound.writer-threads:16}")
+    private int outboundWriterThreads;
+
+    @Value("${timers.tick-ms:100}")
+    private long timerTickMs;
+
+    @Value("${timers.wheel-size:512}")
+    private int timerWheelSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService gameHandlerExecutor() {
+        return newExecutor(virtualThreads, "game-handler", platformThreads);
+    }
+
+    // socket writes for every connection's outbound queue, kept apart from game work so
+    // a burst of slow clients can't hold up moves and matchmaking, or the other way round
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService outboundWriterExecutor() {
+        return newExecutor(virtualThreads, "ws-writer", outboundWriterThreads);
+    }
+
+    // move deadlines and lobby expiry; expired timeouts run on the game handler executor
+    @Bean(destroyMethod = "close")
+    public HashedTimingWheel gameTimers(ExecutorService gameHandlerExecutor) {
+        return new HashedTimingWheel("game-timers", timerTickMs, timerWheelSize, gameHandlerExecutor);
+    }
+
+    public static ExecutorService newExecutor(boolean virtual, String name, int platformThreads) {
+        if (virtual) {
+            if (virtualThreadsAvailable()) {
+                logger.info("Running {} on virtual threads", name);
+                return newVirtualThreadPerTaskExecutor();
+            }
+            logger.warn("Virtual threads requested but not supported by this JVM, using {} platform threads for {}",
+                platformThreads, name);
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(platformThreads, r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+// Limits WebSocket handshakes per client IP. Registered ahead of the auth
+// interceptor, so a connect flood is turned away before any token is verified.
+public class RateLimitHandshakeInterceptor implements HandshakeInterceptor {
+
+    private final RateLimiter limiter;
+
+    public RateLimitHandshakeInterceptor(RateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        String clientIp = remote != null && remote.getAddress() != null
+            ? remote.getAddress().getHostAddress()
+            : "unknown";
+
+        if (limiter.tryAcquire(clientIp)) return true;
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        return false;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, @Nullable Exception exception) {
+        // no-op
+    }
+}
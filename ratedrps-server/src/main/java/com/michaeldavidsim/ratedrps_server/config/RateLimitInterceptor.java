@@ -0,0 +1,26 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Applies a RateLimiter to the paths WebConfig registers it for, keyed by client IP.
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter limiter;
+
+    public RateLimitInterceptor(RateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (limiter.tryAcquire(request.getRemoteAddr())) return true;
+
+        response.setStatus(429);
+        response.getWriter().write("Rate limit exceeded");
+        return false;
+    }
+}
@@ -0,0 +1,85 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Keyed rate limiter: `permits` requests per `window` per key, as a burst of `permits`
+// refilling evenly over the window. Each key's bucket is a single AtomicLong in GCRA
+// form (when the bucket will be full again) updated by CAS, so callers never lock.
+//
+// Buckets live in a Caffeine cache of at most maxKeys. A key idle for a whole window
+// has refilled and is indistinguishable from a new one, so it expires a window after
+// its last request. When a scan of many addresses fills the cache, Caffeine evicts the
+// keys least likely to be seen again rather than refusing newcomers; an evicted key
+// just starts over with a fresh burst. Expiry and eviction are amortized over normal
+// reads and writes, so no single request pays for a sweep.
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    private final Counter rejected;
+    private final Counter evicted;
+
+    public RateLimiter(String name, int permits, long windowMs, int maxKeys, MeterRegistry meterRegistry) {
+        if (permits <= 0 || windowMs <= 0) throw new IllegalArgumentException("permits and windowMs must be positive");
+
+        this.toleranceNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.intervalNanos = toleranceNanos / permits;
+
+        this.rejected = Counter.builder("ratedrps.ratelimit.rejected")
+            .description("Requests refused by a rate limiter")
+            .tag("limiter", name)
+            .tag("reason", "rate")
+            .register(meterRegistry);
+        this.evicted = Counter.builder("ratedrps.ratelimit.evicted")
+            .description("Keys dropped by a full rate limiter before their bucket refilled")
+            .tag("limiter", name)
+            .register(meterRegistry);
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(Duration.ofMillis(windowMs))
+            // maintenance is a small bounded batch, cheaper to run inline than to hand off
+            .executor(Runnable::run)
+            .evictionListener((String key, AtomicLong tat, RemovalCause cause) -> {
+                if (cause == RemovalCause.SIZE) evicted.increment();
+            })
+            .build();
+        Gauge.builder("ratedrps.ratelimit.keys", this, RateLimiter::size)
+            .description("Keys currently tracked by a rate limiter")
+            .tag("limiter", name)
+            .register(meterRegistry);
+    }
+
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        // a request racing the eviction of its key can land on the dropped bucket, which
+        // at worst hands that one client a fresh burst
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long current = tat.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            if (next - now > toleranceNanos) {
+                rejected.increment();
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) return true;
+        }
+    }
+
+    public long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -13,10 +13,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -24,30 +27,50 @@ public class SecurityConfig {
     @Value("${supabase.jwt-secret}")
     private String jwtSecret;
 
+    @Value("${auth.token-cache.max-size:10000}")
+    private long tokenCacheMaxSize;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${management.server.port:${server.port:8080}}")
+    private int managementPort;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authorize -> authorize
                 // this endpoint is rate limited and does not require auth
                 .requestMatchers("/api/health_check").permitAll()
+                // scraped by Prometheus, which has no user token
+                .requestMatchers(prometheusScrape()).permitAll()
                 // allow all for websockets (we check tokens manually)
                 .requestMatchers("/ws/game/**").permitAll()
                 .anyRequest().authenticated()
             )
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.decoder(jwtDecoder()))
+                .jwt(jwt -> jwt.decoder(jwtDecoder))
             );
 
         return http.build();
     }
 
+    // only on the management port, which is not published alongside the app port; if
+    // management shares the app port the scrape needs a token like anything else
+    private RequestMatcher prometheusScrape() {
+        return request -> managementPort != serverPort
+            && request.getLocalPort() == managementPort
+            && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
+    // shared by the resource server and the WebSocket handshake, so both hit the same cache
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
         SecretKeySpec secretKey = new SecretKeySpec(keyBytes, "HmacSHA256");
-        return NimbusJwtDecoder.withSecretKey(secretKey).build();
+        return new CachingJwtDecoder(NimbusJwtDecoder.withSecretKey(secretKey).build(), tokenCacheMaxSize, meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,118 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+// Times every Supabase call, tagged by endpoint rather than full URL so ids in
+// query strings and storage paths don't blow up the tag cardinality. Failed calls
+// (4xx/5xx or no response at all) are also counted per endpoint, so error rates can
+// be alerted on without a histogram query, with the reason limited to 4xx, 5xx,
+// timeout, connect, io or other. users is UserService, game_matches and rpc/* are
+// GameService, storage/* is SupabaseStorageService. Every tag has a small fixed set
+// of values, so meters are built once per combination and reused.
+@Component
+public class SupabaseMetricsFilter implements ExchangeFilterFunction {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+    public SupabaseMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                .doOnSuccess(response -> {
+                    int status = response.statusCode().value();
+                    record(request, String.valueOf(status), start);
+                    if (status >= 400) countError(request, status >= 500 ? "5xx" : "4xx");
+                })
+                .doOnError(error -> {
+                    record(request, "IO_ERROR", start);
+                    countError(request, reasonOf(error));
+                });
+        });
+    }
+
+    private void record(ClientRequest request, String status, long start) {
+        String endpoint = endpointOf(request.url());
+        String method = request.method().name();
+        timers.computeIfAbsent(endpoint + ' ' + method + ' ' + status, key -> Timer.builder("ratedrps.supabase.requests")
+                .description("Latency of outbound Supabase calls")
+                .tag("endpoint", endpoint)
+                .tag("method", method)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void countError(ClientRequest request, String reason) {
+        String endpoint = endpointOf(request.url());
+        String method = request.method().name();
+        errors.computeIfAbsent(endpoint + ' ' + method + ' ' + reason, key -> Counter.builder("ratedrps.supabase.errors")
+                .description("Supabase calls that failed or returned an error status")
+                .tag("endpoint", endpoint)
+                .tag("method", method)
+                .tag("reason", reason)
+                .register(meterRegistry))
+            .increment();
+    }
+
+    // WebClient wraps transport failures, so look through the causes; netty's own
+    // timeout exceptions aren't java.util.concurrent ones, hence the name check
+    static String reasonOf(Throwable error) {
+        String reason = "other";
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause.getClass().getSimpleName().contains("Timeout")) {
+                return "timeout";
+            }
+            if (cause instanceof ConnectException) return "connect";
+            if (cause instanceof IOException) reason = "io";
+        }
+        return reason;
+    }
+
+    // /rest/v1/users -> users, /rest/v1/rpc/increment_user_stats -> rpc/increment_user_stats,
+    // /storage/v1/object/avatars/... -> storage/object
+    static String endpointOf(URI uri) {
+        String path = uri.getPath();
+        if (path == null) return "unknown";
+
+        int rest = path.indexOf("/rest/v1/");
+        if (rest >= 0) {
+            String endpoint = path.substring(rest + "/rest/v1/".length());
+            if (endpoint.startsWith("rpc/")) return endpoint;
+            int slash = endpoint.indexOf('/');
+            return slash >= 0 ? endpoint.substring(0, slash) : endpoint;
+        }
+
+        int storage = path.indexOf("/storage/v1/");
+        if (storage >= 0) {
+            String endpoint = path.substring(storage + "/storage/v1/".length());
+            int slash = endpoint.indexOf('/');
+            return "storage/" + (slash >= 0 ? endpoint.substring(0, slash) : endpoint);
+        }
+        return "other";
+    }
+}
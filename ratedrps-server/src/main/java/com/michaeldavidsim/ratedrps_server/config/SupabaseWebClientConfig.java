@@ -0,0 +1,68 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// Outbound HTTP to Supabase. Calls are non-blocking, but every one still gets a
+// bounded pool slot, a connect timeout and a response timeout, so a slow Supabase
+// fails requests instead of piling them up.
+@Configuration
+public class SupabaseWebClientConfig {
+
+    // large enough for a full avatar download (uploads are capped at 5MB)
+    private static final int MAX_IN_MEMORY_BYTES = 8 * 1024 * 1024;
+
+    @Value("${supabase.http.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${supabase.http.max-pending-acquires:1000}")
+    private int maxPendingAcquires;
+
+    @Value("${supabase.http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${supabase.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${supabase.http.pool-acquire-timeout-ms:1000}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${supabase.http.keep-alive-seconds:30}")
+    private long keepAliveSeconds;
+
+    // reactor-netty pools per remote host, so this is the per-route limit
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supabaseConnectionProvider() {
+        return ConnectionProvider.builder("supabase")
+            .maxConnections(maxConnectionsPerRoute)
+            .pendingAcquireMaxCount(maxPendingAcquires)
+            .pendingAcquireTimeout(Duration.ofMillis(poolAcquireTimeoutMs))
+            .maxIdleTime(Duration.ofSeconds(keepAliveSeconds))
+            .evictInBackground(Duration.ofSeconds(keepAliveSeconds))
+            .build();
+    }
+
+    @Bean
+    public WebClient supabaseWebClient(ConnectionProvider supabaseConnectionProvider,
+                                       SupabaseMetricsFilter metricsFilter) {
+        HttpClient httpClient = HttpClient.create(supabaseConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .responseTimeout(Duration.ofMillis(readTimeoutMs));
+
+        return WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_BYTES))
+            .filter(metricsFilter)
+            .build();
+    }
+}
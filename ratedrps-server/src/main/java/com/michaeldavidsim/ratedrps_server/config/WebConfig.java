@@ -1,18 +1,64 @@
 package com.michaeldavidsim.ratedrps_server.config;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Per-client-IP rate limits. Each protected path gets its own RateLimiter, sized by
+// rate-limit.<name>.permits per rate-limit.<name>.window-ms; the WebSocket handshake
+// limiter is applied in WebSocketConfig.
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Autowired
-    private HealthCheckRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${rate-limit.health-check.permits:5}")
+    private int healthCheckPermits;
+
+    @Value("${rate-limit.health-check.window-ms:10000}")
+    private long healthCheckWindowMs;
+
+    @Value("${rate-limit.users.permits:60}")
+    private int usersPermits;
+
+    @Value("${rate-limit.users.window-ms:60000}")
+    private long usersWindowMs;
+
+    @Value("${rate-limit.ws-handshake.permits:20}")
+    private int handshakePermits;
+
+    @Value("${rate-limit.ws-handshake.window-ms:60000}")
+    private long handshakeWindowMs;
+
+    public WebConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public RateLimiter healthCheckRateLimiter() {
+        return new RateLimiter("health-check", healthCheckPermits, healthCheckWindowMs, maxKeys, meterRegistry);
+    }
+
+    @Bean
+    public RateLimiter usersRateLimiter() {
+        return new RateLimiter("users", usersPermits, usersWindowMs, maxKeys, meterRegistry);
+    }
+
+    @Bean
+    public RateLimiter webSocketHandshakeRateLimiter() {
+        return new RateLimiter("ws-handshake", handshakePermits, handshakeWindowMs, maxKeys, meterRegistry);
+    }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(rateLimiter).addPathPatterns("/api/health_check");
+        registry.addInterceptor(new RateLimitInterceptor(healthCheckRateLimiter())).addPathPatterns("/api/health_check");
+        registry.addInterceptor(new RateLimitInterceptor(usersRateLimiter())).addPathPatterns("/api/users/**");
     }
 }
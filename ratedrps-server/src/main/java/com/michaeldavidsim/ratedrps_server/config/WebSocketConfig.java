@@ -1,5 +1,6 @@
 package com.michaeldavidsim.ratedrps_server.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -13,17 +14,20 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     private final GameWebSocketHandler gameWebSocketHandler;
     private final AuthHandshakeInterceptor authHandshakeInterceptor;
+    private final RateLimiter handshakeRateLimiter;
 
     public WebSocketConfig(GameWebSocketHandler gameWebSocketHandler,
-                           AuthHandshakeInterceptor authHandshakeInterceptor) {
+                           AuthHandshakeInterceptor authHandshakeInterceptor,
+                           @Qualifier("webSocketHandshakeRateLimiter") RateLimiter handshakeRateLimiter) {
         this.gameWebSocketHandler = gameWebSocketHandler;
         this.authHandshakeInterceptor = authHandshakeInterceptor;
+        this.handshakeRateLimiter = handshakeRateLimiter;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(gameWebSocketHandler, "/ws/game")
-                .addInterceptors(authHandshakeInterceptor)
+                .addInterceptors(new RateLimitHandshakeInterceptor(handshakeRateLimiter), authHandshakeInterceptor)
                 .setAllowedOrigins("https://ratedrps.vercel.app", "http://localhost:5173");
     }
 }
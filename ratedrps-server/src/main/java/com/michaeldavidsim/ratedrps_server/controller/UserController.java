@@ -19,6 +19,8 @@ import org.springframework.web.multipart.MultipartFile;
 import com.michaeldavidsim.ratedrps_server.service.SupabaseStorageService;
 import com.michaeldavidsim.ratedrps_server.service.UserService;
 
+import reactor.core.publisher.Mono;
+
 
 @RestController
 @RequestMapping("/api/users")
@@ -38,25 +40,25 @@ public class UserController {
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
 
     @PostMapping(value = "/upload-avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> uploadAvatar(
+    public Mono<ResponseEntity<?>> uploadAvatar(
             @RequestParam("avatar") MultipartFile file,
             @RequestParam("userId") String userId) {
         
         try {
             if (file == null || file.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ErrorResponse("No file uploaded"));
+                return Mono.just(ResponseEntity.badRequest()
+                    .body(new ErrorResponse("No file uploaded")));
             }
 
             if (file.getSize() > MAX_FILE_SIZE) {
-                return ResponseEntity.badRequest()
-                    .body(new ErrorResponse("File size must be less than 5MB"));
+                return Mono.just(ResponseEntity.badRequest()
+                    .body(new ErrorResponse("File size must be less than 5MB")));
             }
 
             String contentType = file.getContentType();
             if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase())) {
-                return ResponseEntity.badRequest()
-                    .body(new ErrorResponse("Only image files are allowed"));
+                return Mono.just(ResponseEntity.badRequest()
+                    .body(new ErrorResponse("Only image files are allowed")));
             }
 
             String originalFilename = file.getOriginalFilename();
@@ -64,42 +66,40 @@ public class UserController {
             String fileName = userId + "-" + System.currentTimeMillis() + "." + fileExtension;
             String filePath = userId + "/" + fileName;
 
-            String publicUrl = storageService.uploadFile("avatars", filePath, file);
-
-            AvatarUploadResponse response = new AvatarUploadResponse(
-                true, 
-                publicUrl, 
-                filePath,
-                "Avatar uploaded successfully"
-            );
-
-            userService.updateUserAvatarUrl(userId, filePath);
-
-            return ResponseEntity.ok(response);
+            return storageService.uploadFile("avatars", filePath, file)
+                .<ResponseEntity<?>>flatMap(publicUrl -> {
+                    AvatarUploadResponse response = new AvatarUploadResponse(
+                        true, 
+                        publicUrl, 
+                        filePath,
+                        "Avatar uploaded successfully"
+                    );
+
+                    return userService.updateUserAvatarUrl(userId, filePath)
+                        .thenReturn(ResponseEntity.ok(response));
+                })
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Internal server error: " + e.getMessage()))));
 
         } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ErrorResponse("Failed to process file upload"));
+            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Failed to process file upload")));
                 
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ErrorResponse("Internal server error: " + e.getMessage()));
+            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Internal server error: " + e.getMessage())));
         }
     }
 
     @GetMapping("/avatar/{filename}")
-    public ResponseEntity<?> getAvatar(@PathVariable String filename) {
-        try {
-            byte[] avatarData = storageService.downloadFile("avatars", filename);
-            
-            return ResponseEntity.ok()
+    public Mono<ResponseEntity<?>> getAvatar(@PathVariable String filename) {
+        return Mono.defer(() -> storageService.downloadFile("avatars", filename))
+            .<ResponseEntity<?>>map(avatarData -> ResponseEntity.ok()
                 .contentType(MediaType.IMAGE_JPEG)
                 .header("Cache-Control", "public, max-age=3600")
-                .body(avatarData);
-                
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+                .body(avatarData))
+            .onErrorResume(e -> Mono.just(ResponseEntity.notFound().build()))
+            .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
     private String getFileExtension(String filename) {
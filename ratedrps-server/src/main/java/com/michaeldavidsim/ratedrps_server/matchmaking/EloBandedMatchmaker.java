@@ -0,0 +1,210 @@
+package com.michaeldavidsim.ratedrps_server.matchmaking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EloBandedMatchmaker implements Matchmaker {
+
+    // waiting tickets bucketed by exact rating, oldest first within a bucket; cancelled
+    // tickets are left in place and pruned the next time the index walks past them
+    private final NavigableMap<Integer, ArrayDeque<MatchTicket>> buckets = new TreeMap<>();
+    private final WaitingQueue waiting = new WaitingQueue();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final int initialGap;
+    private final int gapWidenPerSecond;
+    private final int maxGap;
+
+    public EloBandedMatchmaker(@Value("${matchmaking.initial-gap:100}") int initialGap,
+                               @Value("${matchmaking.gap-widen-per-second:25}") int gapWidenPerSecond,
+                               @Value("${matchmaking.max-gap:600}") int maxGap) {
+        this.initialGap = initialGap;
+        this.gapWidenPerSecond = gapWidenPerSecond;
+        this.maxGap = maxGap;
+    }
+
+    @Override
+    public Optional<MatchPair> enqueue(MatchTicket ticket) {
+        if (!waiting.enqueueIfAbsent(ticket)) {
+            return Optional.empty();
+        }
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            MatchTicket opponent;
+            while ((opponent = findOpponent(ticket, now)) != null) {
+                removeFromIndex(opponent);
+                if (!waiting.hold(opponent)) {
+                    continue; // cancelled after we found it, look again
+                }
+                if (!waiting.claim(ticket)) {
+                    // we were cancelled ourselves; give the opponent back its spot,
+                    // unless it has been cancelled too in the meantime
+                    if (waiting.release(opponent)) {
+                        addToIndex(opponent);
+                    }
+                    return Optional.empty();
+                }
+                waiting.confirm(opponent);
+                return Optional.of(MatchPair.of(opponent, ticket, now));
+            }
+
+            if (waiting.isLive(ticket)) {
+                addToIndex(ticket);
+            }
+            return Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean cancel(String userId) {
+        return waiting.cancel(userId) != null;
+    }
+
+    @Override
+    public boolean isQueued(String userId) {
+        return waiting.contains(userId);
+    }
+
+    @Override
+    public List<MatchPair> sweep() {
+        return sweep(System.nanoTime());
+    }
+
+    List<MatchPair> sweep(long now) {
+        lock.lock();
+        try {
+            List<MatchPair> pairs = new ArrayList<>();
+            MatchTicket previous = null;
+
+            // neighbours in rating order are the closest candidates for each other
+            Iterator<ArrayDeque<MatchTicket>> bucketIt = buckets.values().iterator();
+            while (bucketIt.hasNext()) {
+                ArrayDeque<MatchTicket> bucket = bucketIt.next();
+                Iterator<MatchTicket> ticketIt = bucket.iterator();
+                while (ticketIt.hasNext()) {
+                    MatchTicket ticket = ticketIt.next();
+                    if (!waiting.isLive(ticket)) {
+                        ticketIt.remove();
+                        continue;
+                    }
+                    if (previous != null && accepts(previous, ticket, now)) {
+                        pairs.add(MatchPair.of(previous, ticket, now));
+                        previous = null;
+                    } else {
+                        previous = ticket;
+                    }
+                }
+                if (bucket.isEmpty()) {
+                    bucketIt.remove();
+                }
+            }
+
+            List<MatchPair> claimed = new ArrayList<>(pairs.size());
+            for (MatchPair pair : pairs) {
+                removeFromIndex(pair.first());
+                removeFromIndex(pair.second());
+                if (claimPair(pair)) {
+                    claimed.add(pair);
+                }
+            }
+            return claimed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return waiting.size();
+    }
+
+    // a pair found by the sweep can still lose a player to a concurrent cancel;
+    // whoever survives, and has not cancelled since, goes back into the index
+    private boolean claimPair(MatchPair pair) {
+        boolean first = waiting.hold(pair.first());
+        boolean second = waiting.hold(pair.second());
+        if (first && second) {
+            waiting.confirm(pair.first());
+            waiting.confirm(pair.second());
+            return true;
+        }
+
+        if (first && waiting.release(pair.first())) addToIndex(pair.first());
+        if (second && waiting.release(pair.second())) addToIndex(pair.second());
+        return false;
+    }
+
+    // only the nearest bucket on each side is checked, keeping arrivals at O(log n);
+    // anyone skipped here is picked up by sweep() once their gap has widened
+    private MatchTicket findOpponent(MatchTicket ticket, long now) {
+        MatchTicket lower = liveHead(buckets.floorEntry(ticket.rating()), true);
+        MatchTicket higher = liveHead(buckets.higherEntry(ticket.rating()), false);
+
+        boolean lowerOk = lower != null && accepts(lower, ticket, now);
+        boolean higherOk = higher != null && accepts(higher, ticket, now);
+
+        if (lowerOk && higherOk) {
+            int lowerGap = ticket.rating() - lower.rating();
+            int higherGap = higher.rating() - ticket.rating();
+            return lowerGap <= higherGap ? lower : higher;
+        }
+        if (lowerOk) return lower;
+        if (higherOk) return higher;
+        return null;
+    }
+
+    // drops cancelled tickets off the front of the nearest bucket, moving outward if it empties
+    private MatchTicket liveHead(Map.Entry<Integer, ArrayDeque<MatchTicket>> entry, boolean downward) {
+        while (entry != null) {
+            ArrayDeque<MatchTicket> bucket = entry.getValue();
+            MatchTicket head;
+            while ((head = bucket.peekFirst()) != null && !waiting.isLive(head)) {
+                bucket.pollFirst();
+            }
+            if (head != null) return head;
+
+            buckets.remove(entry.getKey());
+            entry = downward ? buckets.lowerEntry(entry.getKey()) : buckets.higherEntry(entry.getKey());
+        }
+        return null;
+    }
+
+    private boolean accepts(MatchTicket a, MatchTicket b, long now) {
+        int gap = Math.abs(a.rating() - b.rating());
+        return gap <= Math.max(allowedGap(a, now), allowedGap(b, now));
+    }
+
+    int allowedGap(MatchTicket ticket, long now) {
+        long widened = initialGap + gapWidenPerSecond * ticket.waitedMillis(now) / 1000;
+        return (int) Math.min(maxGap, widened);
+    }
+
+    private void addToIndex(MatchTicket ticket) {
+        buckets.computeIfAbsent(ticket.rating(), r -> new ArrayDeque<>()).addLast(ticket);
+    }
+
+    private void removeFromIndex(MatchTicket ticket) {
+        ArrayDeque<MatchTicket> bucket = buckets.get(ticket.rating());
+        if (bucket != null) {
+            bucket.remove(ticket);
+            if (bucket.isEmpty()) {
+                buckets.remove(ticket.rating());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.michaeldavidsim.ratedrps_server.matchmaking;
+
+public record MatchPair(MatchTicket first, MatchTicket second,
+                        int ratingGap, long firstWaitMillis, long secondWaitMillis) {
+
+    static MatchPair of(MatchTicket first, MatchTicket second, long nowNanos) {
+        return new MatchPair(
+            first,
+            second,
+            Math.abs(first.rating() - second.rating()),
+            first.waitedMillis(nowNanos),
+            second.waitedMillis(nowNanos)
+        );
+    }
+}
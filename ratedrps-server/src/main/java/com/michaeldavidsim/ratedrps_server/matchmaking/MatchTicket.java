@@ -0,0 +1,18 @@
+package com.michaeldavidsim.ratedrps_server.matchmaking;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+
+public record MatchTicket(GamePlayer player, int rating, long enqueuedAtNanos) {
+
+    public MatchTicket(GamePlayer player, int rating) {
+        this(player, rating, System.nanoTime());
+    }
+
+    public String getUserId() {
+        return player.getUserId();
+    }
+
+    public long waitedMillis(long nowNanos) {
+        return Math.max(0, (nowNanos - enqueuedAtNanos) / 1_000_000);
+    }
+}
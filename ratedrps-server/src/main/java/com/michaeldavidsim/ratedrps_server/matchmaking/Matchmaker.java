@@ -0,0 +1,19 @@
+package com.michaeldavidsim.ratedrps_server.matchmaking;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface Matchmaker {
+
+    // tries to pair the ticket on arrival, otherwise leaves it waiting
+    Optional<MatchPair> enqueue(MatchTicket ticket);
+
+    boolean cancel(String userId);
+
+    boolean isQueued(String userId);
+
+    // re-checks waiting players whose acceptable rating gap has widened
+    List<MatchPair> sweep();
+
+    int size();
+}
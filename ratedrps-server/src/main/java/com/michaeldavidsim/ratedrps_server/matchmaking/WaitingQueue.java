@@ -0,0 +1,96 @@
+package com.michaeldavidsim.ratedrps_server.matchmaking;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Indexed set of waiting tickets. Membership, enqueue, cancel and size are all O(1);
+// removing a ticket here is what "claims" it, so a cancel racing a match is decided
+// by whichever removal lands first.
+//
+// A ticket claimed for a match that still needs its other player is held rather than
+// dropped. hold, release and cancel for a user all run under that user's entry lock
+// in `held`, so a cancel either takes the ticket before it is held or drops the hold,
+// and release() cannot put a player who has since left back in the queue.
+public class WaitingQueue {
+
+    private final ConcurrentHashMap<String, MatchTicket> tickets;
+    private final ConcurrentHashMap<String, MatchTicket> held = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public WaitingQueue() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    WaitingQueue(ConcurrentHashMap<String, MatchTicket> tickets) {
+        this.tickets = tickets;
+    }
+
+    public boolean enqueueIfAbsent(MatchTicket ticket) {
+        if (tickets.putIfAbsent(ticket.getUserId(), ticket) == null) {
+            size.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // under the same lock as hold() and release(), so no hold can be taken between
+    // finding nothing held and finding nothing queued
+    public MatchTicket cancel(String userId) {
+        MatchTicket[] cancelled = new MatchTicket[1];
+        held.compute(userId, (key, wasHeld) -> {
+            MatchTicket removed = tickets.remove(key);
+            if (removed != null) size.decrementAndGet();
+            cancelled[0] = removed != null ? removed : wasHeld;
+            return null;
+        });
+        return cancelled[0];
+    }
+
+    public boolean claim(MatchTicket ticket) {
+        if (tickets.remove(ticket.getUserId(), ticket)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // claims the ticket provisionally; a cancel for the same user either runs before
+    // this and leaves nothing to claim, or after it and drops the hold
+    public boolean hold(MatchTicket ticket) {
+        boolean[] claimed = new boolean[1];
+        held.compute(ticket.getUserId(), (userId, current) -> {
+            claimed[0] = claim(ticket);
+            return claimed[0] ? ticket : current;
+        });
+        return claimed[0];
+    }
+
+    // the match went ahead
+    public void confirm(MatchTicket ticket) {
+        held.remove(ticket.getUserId(), ticket);
+    }
+
+    // the match fell through: the ticket goes back in the queue unless its player
+    // cancelled while it was held
+    public boolean release(MatchTicket ticket) {
+        boolean[] restored = new boolean[1];
+        held.computeIfPresent(ticket.getUserId(), (userId, current) -> {
+            if (current != ticket) return current;
+            restored[0] = enqueueIfAbsent(ticket);
+            return null;
+        });
+        return restored[0];
+    }
+
+    public boolean isLive(MatchTicket ticket) {
+        return tickets.get(ticket.getUserId()) == ticket;
+    }
+
+    public boolean contains(String userId) {
+        return tickets.containsKey(userId);
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
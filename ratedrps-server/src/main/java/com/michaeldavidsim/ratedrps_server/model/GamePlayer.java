@@ -3,7 +3,6 @@ package com.michaeldavidsim.ratedrps_server.model;
 public class GamePlayer {
     private final String userId;
     private final String username;
-    private String move;
 
     public GamePlayer(String userId, String username) {
         this.userId = userId;
@@ -18,14 +17,6 @@ public class GamePlayer {
         return username;
     }
 
-    public String getMove() {
-        return move;
-    }
-
-    public void setMove(String move) {
-        this.move = move;
-    }
-
     // easier for comparisons in sets and maps
     @Override
     public boolean equals(Object o) {
@@ -1,16 +1,27 @@
 package com.michaeldavidsim.ratedrps_server.model;
 
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GameSession {
 
+    public enum MoveResult { RECORDED, RESOLVED, ALREADY_MOVED, ALREADY_RESOLVED, NOT_IN_GAME }
+
+    private final AtomicReference<GameState> state = new AtomicReference<>(GameState.INITIAL);
     private String gameId;
+    // compact per-process id used by binary clients instead of the gameId string
+    private int handle;
     private GamePlayer player1;
     private GamePlayer player2;
+    private volatile int player1Rating;
+    private volatile int player2Rating;
     private int player1EloDelta;
     private int player2EloDelta;
     private String result;
     private Instant createdAt;
+    // monotonic timestamps for the game latency metrics; 0 when not yet reached
+    private long matchedAtNanos;
+    private volatile long firstMoveAtNanos;
 
     public GameSession() {}
 
@@ -20,11 +31,15 @@ public class GameSession {
         this.player2 = player2;
         this.result = null;
         this.createdAt = Instant.now();
+        this.matchedAtNanos = System.nanoTime();
     }
 
     public String getGameId() { return gameId; }
     public void setGameId(String gameId) { this.gameId = gameId; }
 
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
+
     public GamePlayer getPlayer1() { return player1; }
     public void setPlayer1(GamePlayer player1) { this.player1 = player1; }
 
@@ -37,15 +52,61 @@ public class GameSession {
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
+    public long getMatchedAtNanos() { return matchedAtNanos; }
+    public long getFirstMoveAtNanos() { return firstMoveAtNanos; }
+
     public String getPlayer1Username() { return player1 != null ? player1.getUsername() : null; }
     public String getPlayer2Username() { return player2 != null ? player2.getUsername() : null; }
     public String getPlayer1Id() { return player1 != null ? player1.getUserId() : null; }
     public String getPlayer2Id() { return player2 != null ? player2.getUserId() : null; }
 
-    public String getPlayer1Move() { return player1 != null ? player1.getMove() : null; }
-    public void setPlayer1Move(String move) { if (player1 != null) player1.setMove(move); }
-    public String getPlayer2Move() { return player2 != null ? player2.getMove() : null; }
-    public void setPlayer2Move(String move) { if (player2 != null) player2.setMove(move); }
+    public GameState getState() { return state.get(); }
+
+    // lock-free; the caller that gets RESOLVED back is the only one that should resolve the game
+    public MoveResult submitMove(String userId, Move move) {
+        boolean isPlayer1;
+        if (userId.equals(getPlayer1Id())) {
+            isPlayer1 = true;
+        } else if (userId.equals(getPlayer2Id())) {
+            isPlayer1 = false;
+        } else {
+            return MoveResult.NOT_IN_GAME;
+        }
+
+        long now = System.nanoTime();
+        while (true) {
+            GameState current = state.get();
+            if (current.isResolved()) return MoveResult.ALREADY_RESOLVED;
+            if (current.moveOf(isPlayer1) != null) return MoveResult.ALREADY_MOVED;
+
+            GameState next = current.withMove(isPlayer1, move);
+            if (state.compareAndSet(current, next)) {
+                if (next.isResolved()) return MoveResult.RESOLVED;
+                firstMoveAtNanos = now;
+                return MoveResult.RECORDED;
+            }
+        }
+    }
+
+    // ends a game whose move deadline passed; false if it resolved first
+    public boolean forfeit() {
+        while (true) {
+            GameState current = state.get();
+            if (current.isResolved()) return false;
+            if (state.compareAndSet(current, current.forfeited())) return true;
+        }
+    }
+
+    public String getPlayer1Move() { return wireName(state.get().player1Move()); }
+    public String getPlayer2Move() { return wireName(state.get().player2Move()); }
+
+    private static String wireName(Move move) { return move != null ? move.getWireName() : null; }
+
+    // ratings used for Elo at resolution; seeded at match time and refreshed by the prefetch
+    public int getPlayer1Rating() { return player1Rating; }
+    public void setPlayer1Rating(int rating) { this.player1Rating = rating; }
+    public int getPlayer2Rating() { return player2Rating; }
+    public void setPlayer2Rating(int rating) { this.player2Rating = rating; }
 
     public int getPlayer1EloDelta() { return player1EloDelta; }
     public void setPlayer1EloDelta(int delta) { this.player1EloDelta = delta; }
@@ -58,6 +119,7 @@ public class GameSession {
                 "gameId='" + gameId + '\'' +
                 ", player1=" + player1 +
                 ", player2=" + player2 +
+                ", state=" + state.get() +
                 ", result='" + result + '\'' +
                 ", createdAt=" + createdAt +
                 '}';
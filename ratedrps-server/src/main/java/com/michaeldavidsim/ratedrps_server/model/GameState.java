@@ -0,0 +1,41 @@
+package com.michaeldavidsim.ratedrps_server.model;
+
+// Immutable snapshot of a game's moves. GameSession swaps these in with CAS so
+// exactly one thread observes the transition into RESOLVED.
+public record GameState(Phase phase, Move player1Move, Move player2Move) {
+
+    public enum Phase { WAITING, ONE_MOVED, RESOLVED }
+
+    public static final GameState INITIAL = new GameState(Phase.WAITING, null, null);
+
+    public Move moveOf(boolean player1) {
+        return player1 ? player1Move : player2Move;
+    }
+
+    public GameState withMove(boolean player1, Move move) {
+        Move p1 = player1 ? move : player1Move;
+        Move p2 = player1 ? player2Move : move;
+        Phase next = p1 != null && p2 != null ? Phase.RESOLVED : Phase.ONE_MOVED;
+        return new GameState(next, p1, p2);
+    }
+
+    // the clock ran out: resolved with whatever moves were made
+    public GameState forfeited() {
+        return new GameState(Phase.RESOLVED, player1Move, player2Move);
+    }
+
+    public boolean isResolved() {
+        return phase == Phase.RESOLVED;
+    }
+
+    // only meaningful once resolved; in a forfeit the player who moved wins, and a
+    // game neither player moved in is a draw
+    public byte outcome() {
+        if (player1Move == null || player2Move == null) {
+            if (player1Move != null) return Move.FIRST_WINS;
+            if (player2Move != null) return Move.SECOND_WINS;
+            return Move.DRAW;
+        }
+        return Move.outcome(player1Move, player2Move);
+    }
+}
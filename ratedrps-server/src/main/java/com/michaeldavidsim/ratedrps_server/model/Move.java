@@ -0,0 +1,58 @@
+package com.michaeldavidsim.ratedrps_server.model;
+
+public enum Move {
+    ROCK("rock"),
+    PAPER("paper"),
+    SCISSORS("scissors");
+
+    public static final byte DRAW = 0;
+    public static final byte FIRST_WINS = 1;
+    public static final byte SECOND_WINS = 2;
+
+    private static final Move[] VALUES = values();
+
+    // OUTCOMES[first][second], indexed by ordinal
+    private static final byte[][] OUTCOMES = new byte[VALUES.length][VALUES.length];
+
+    static {
+        for (Move first : VALUES) {
+            for (Move second : VALUES) {
+                int diff = (first.ordinal() - second.ordinal() + VALUES.length) % VALUES.length;
+                OUTCOMES[first.ordinal()][second.ordinal()] =
+                    diff == 0 ? DRAW : diff == 1 ? FIRST_WINS : SECOND_WINS;
+            }
+        }
+    }
+
+    private final String wireName;
+
+    Move(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static Move fromWireName(String name) {
+        if (name == null) return null;
+        return switch (name) {
+            case "rock" -> ROCK;
+            case "paper" -> PAPER;
+            case "scissors" -> SCISSORS;
+            default -> null;
+        };
+    }
+
+    public static Move fromCode(int code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+    }
+
+    public static byte outcome(Move first, Move second) {
+        return OUTCOMES[first.ordinal()][second.ordinal()];
+    }
+}
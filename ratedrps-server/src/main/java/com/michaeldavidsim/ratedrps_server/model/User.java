@@ -11,6 +11,18 @@ public class User {
 
     public User() {}
 
+    public User copy() {
+        User copy = new User();
+        copy.id = id;
+        copy.elo = elo;
+        copy.wins = wins;
+        copy.losses = losses;
+        copy.draws = draws;
+        copy.createdAt = createdAt;
+        copy.username = username;
+        return copy;
+    }
+
     public String getId() {
         return id;
     }
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class EloService {
 
+    public static final int DEFAULT_RATING = 1000;
     private static final int DEFAULT_K_FACTOR = 32;
 
     // score: player 1 = 1.0, player 2 = 0.0, draw = 0.5
@@ -0,0 +1,490 @@
+package com.michaeldavidsim.ratedrps_server.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Append-only, memory-mapped log of finished games that have not been fully written
+// to Supabase yet. Appends are a memcpy into the mapping (so they survive a process
+// crash immediately); a background thread group-commits them to disk every
+// outbox.fsync-interval-ms. Each player's stats update is acknowledged separately, so
+// a replay only re-sends the updates that were not acknowledged. Delivery is still
+// at-least-once: a crash after increment_user_stats succeeds but before its ack is
+// synced applies that delta again on replay. Games Supabase rejects outright are
+// discarded with a tombstone so they are not replayed.
+//
+// Layout: header [int magic][int unused][long epoch], then records of
+// [int payloadLength][int crc][long epoch][byte type][payload]. A record with the
+// wrong epoch or crc marks the end of the log.
+@Service
+public class GameOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameOutbox.class);
+
+    private static final int MAGIC = 0x52505330;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_OVERHEAD = 17;
+    private static final byte GAME = 1;
+    private static final byte STATS_APPLIED = 2;
+    private static final byte DISCARDED = 3;
+
+    private final Path path;
+    private final int capacity;
+    private final long fsyncIntervalMs;
+    private final Map<String, PendingGame> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // recorded games waiting for their next force(); guarded by writeLock
+    private final List<SyncWaiter> syncWaiters = new ArrayList<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long epoch;
+    private int position;
+    private int forcedPosition;
+    private ScheduledExecutorService syncer;
+
+    public GameOutbox(@Value("${outbox.path:data/game-outbox.dat}") String path,
+                      @Value("${outbox.capacity-bytes:67108864}") int capacity,
+                      @Value("${outbox.fsync-interval-ms:10}") long fsyncIntervalMs,
+                      MeterRegistry meterRegistry) {
+        this.path = Path.of(path);
+        this.capacity = capacity;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+
+        Gauge.builder("ratedrps.outbox.pending", pending, Map::size)
+            .description("Finished games not yet fully written to Supabase")
+            .register(meterRegistry);
+    }
+
+    private record SyncWaiter(int position, CompletableFuture<Boolean> synced) {}
+
+    private static final class PendingGame {
+        private final GameSession session;
+        private final AtomicBoolean inFlight;
+        private volatile boolean player1Applied;
+        private volatile boolean player2Applied;
+
+        PendingGame(GameSession session, boolean inFlight) {
+            this.session = session;
+            this.inFlight = new AtomicBoolean(inFlight);
+        }
+
+        boolean isApplied(String userId) {
+            if (userId.equals(session.getPlayer1Id())) return player1Applied;
+            if (userId.equals(session.getPlayer2Id())) return player2Applied;
+            return false;
+        }
+
+        void markApplied(String userId) {
+            if (userId.equals(session.getPlayer1Id())) player1Applied = true;
+            if (userId.equals(session.getPlayer2Id())) player2Applied = true;
+        }
+
+        boolean isComplete() {
+            return player1Applied && player2Applied;
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        boolean existing = Files.exists(path) && Files.size(path) >= HEADER_BYTES;
+        mapFile();
+
+        if (existing && buffer.getInt(0) == MAGIC) {
+            epoch = buffer.getLong(8);
+            replay();
+        } else {
+            epoch = 1;
+            writeHeader(buffer, epoch);
+            position = HEADER_BYTES;
+        }
+        forcedPosition = position;
+
+        if (!pending.isEmpty()) {
+            logger.info("Recovered {} unacknowledged games from outbox", pending.size());
+        }
+
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "game-outbox-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::sync, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        syncer.shutdown();
+        sync();
+        channel.close();
+    }
+
+    // completes with true once the game has been forced to disk, or with false straight
+    // away if it is already in the outbox. It can complete while the outbox is locked, so
+    // anything more than bookkeeping belongs on another executor.
+    public CompletableFuture<Boolean> record(GameSession session) {
+        if (pending.putIfAbsent(session.getGameId(), new PendingGame(session, true)) != null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> synced = new CompletableFuture<>();
+        writeLock.lock();
+        try {
+            append(GAME, encodeGame(session));
+            syncWaiters.add(new SyncWaiter(position, synced));
+        } catch (RuntimeException e) {
+            pending.remove(session.getGameId());
+            throw e;
+        } finally {
+            writeLock.unlock();
+        }
+        return synced;
+    }
+
+    public void ackStats(Collection<String> gameIds, String userId) {
+        for (String gameId : gameIds) {
+            PendingGame game = pending.get(gameId);
+            if (game == null || game.isApplied(userId)) continue;
+
+            // held across both steps so a compaction never sees the ack on disk but not in memory
+            writeLock.lock();
+            try {
+                append(STATS_APPLIED, encodeAck(gameId, userId));
+                game.markApplied(userId);
+            } finally {
+                writeLock.unlock();
+            }
+            if (game.isComplete()) {
+                pending.remove(gameId);
+            }
+        }
+        resetIfDrained();
+    }
+
+    // the game will never be written; the caller has dead-lettered it
+    public void discard(String gameId) {
+        if (pending.remove(gameId) == null) return;
+        append(DISCARDED, encodeGameId(gameId));
+        resetIfDrained();
+    }
+
+    public boolean isStatsApplied(String gameId, String userId) {
+        PendingGame game = pending.get(gameId);
+        return game != null && game.isApplied(userId);
+    }
+
+    // hands out games nobody is currently writing, marking them in flight
+    public List<GameSession> claimRetryable() {
+        List<GameSession> claimed = new ArrayList<>();
+        for (PendingGame game : pending.values()) {
+            if (game.inFlight.compareAndSet(false, true)) {
+                claimed.add(game.session);
+            }
+        }
+        return claimed;
+    }
+
+    public void release(String gameId) {
+        PendingGame game = pending.get(gameId);
+        if (game != null) {
+            game.inFlight.set(false);
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void append(byte type, byte[] payload) {
+        writeLock.lock();
+        try {
+            int size = RECORD_OVERHEAD + payload.length;
+            if (position + size > capacity) {
+                compact();
+                if (position + size > capacity) {
+                    throw new IllegalStateException("Game outbox is full (" + pending.size() + " pending games)");
+                }
+            }
+            position = writeRecord(buffer, position, epoch, type, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact game outbox", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // group commit: one force() covers every append since the last one
+    private void sync() {
+        MappedByteBuffer target;
+        long syncEpoch;
+        int from;
+        int upTo;
+        writeLock.lock();
+        try {
+            target = buffer;
+            syncEpoch = epoch;
+            from = forcedPosition;
+            upTo = position;
+        } finally {
+            writeLock.unlock();
+        }
+        if (upTo <= from) return;
+
+        Exception failure = null;
+        try {
+            target.force(from, upTo - from);
+        } catch (Exception e) {
+            logger.error("Failed to sync game outbox", e);
+            failure = e;
+        }
+
+        // a reset or compaction in between has already forced and completed these
+        List<SyncWaiter> done = new ArrayList<>();
+        writeLock.lock();
+        try {
+            if (target != buffer || syncEpoch != epoch) return;
+            if (failure == null && forcedPosition < upTo) {
+                forcedPosition = upTo;
+            }
+            syncWaiters.removeIf(waiter -> waiter.position() <= upTo && done.add(waiter));
+        } finally {
+            writeLock.unlock();
+        }
+        for (SyncWaiter waiter : done) {
+            if (failure == null) {
+                waiter.synced().complete(true);
+            } else {
+                waiter.synced().completeExceptionally(failure);
+            }
+        }
+    }
+
+    // everything written so far is on disk (or acknowledged); caller holds writeLock
+    private void completeAllWaiters() {
+        for (SyncWaiter waiter : syncWaiters) {
+            waiter.synced().complete(true);
+        }
+        syncWaiters.clear();
+    }
+
+    // once everything is acknowledged the log can start over; bumping the epoch
+    // invalidates the old records without having to zero them
+    private void resetIfDrained() {
+        if (!pending.isEmpty() || position < capacity / 4) return;
+
+        writeLock.lock();
+        try {
+            if (!pending.isEmpty()) return;
+            epoch++;
+            writeHeader(buffer, epoch);
+            buffer.force(0, HEADER_BYTES);
+            position = HEADER_BYTES;
+            forcedPosition = HEADER_BYTES;
+            completeAllWaiters();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // rewrites only the live records into a fresh file and swaps it in; caller holds writeLock
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        long nextEpoch = epoch + 1;
+        int nextPosition = HEADER_BYTES;
+
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            writeHeader(target, nextEpoch);
+            for (PendingGame game : pending.values()) {
+                byte[] record = encodeGame(game.session);
+                if (nextPosition + RECORD_OVERHEAD + record.length > capacity) {
+                    throw new IllegalStateException("Game outbox is full (" + pending.size() + " pending games)");
+                }
+                nextPosition = writeRecord(target, nextPosition, nextEpoch, GAME, record);
+                if (game.player1Applied) {
+                    nextPosition = writeRecord(target, nextPosition, nextEpoch, STATS_APPLIED,
+                        encodeAck(game.session.getGameId(), game.session.getPlayer1Id()));
+                }
+                if (game.player2Applied) {
+                    nextPosition = writeRecord(target, nextPosition, nextEpoch, STATS_APPLIED,
+                        encodeAck(game.session.getGameId(), game.session.getPlayer2Id()));
+                }
+            }
+            target.force();
+        }
+
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        mapFile();
+        epoch = nextEpoch;
+        position = nextPosition;
+        forcedPosition = nextPosition;
+        completeAllWaiters();
+        logger.info("Compacted game outbox to {} bytes", nextPosition);
+    }
+
+    private void mapFile() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void replay() throws IOException {
+        int pos = HEADER_BYTES;
+        while (pos + RECORD_OVERHEAD <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + RECORD_OVERHEAD + length > capacity) break;
+            if (buffer.getLong(pos + 8) != epoch) break;
+
+            byte type = buffer.get(pos + 16);
+            byte[] payload = new byte[length];
+            buffer.get(pos + RECORD_OVERHEAD, payload);
+            if (buffer.getInt(pos + 4) != checksum(type, payload)) break;
+
+            if (type == GAME) {
+                GameSession session = decodeGame(payload);
+                pending.putIfAbsent(session.getGameId(), new PendingGame(session, false));
+            } else if (type == DISCARDED) {
+                pending.remove(new DataInputStream(new ByteArrayInputStream(payload)).readUTF());
+            } else if (type == STATS_APPLIED) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                String gameId = in.readUTF();
+                String userId = in.readUTF();
+                PendingGame game = pending.get(gameId);
+                if (game != null) {
+                    game.markApplied(userId);
+                    if (game.isComplete()) pending.remove(gameId);
+                }
+            }
+            pos += RECORD_OVERHEAD + length;
+        }
+        position = pos;
+    }
+
+    private static void writeHeader(MappedByteBuffer target, long epoch) {
+        target.putInt(0, MAGIC);
+        target.putInt(4, 0);
+        target.putLong(8, epoch);
+    }
+
+    // the length goes in last so a torn write is never mistaken for a complete record
+    private static int writeRecord(MappedByteBuffer target, int pos, long epoch, byte type, byte[] payload) {
+        target.putInt(pos + 4, checksum(type, payload));
+        target.putLong(pos + 8, epoch);
+        target.put(pos + 16, type);
+        target.put(pos + RECORD_OVERHEAD, payload);
+        target.putInt(pos, payload.length);
+        return pos + RECORD_OVERHEAD + payload.length;
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encodeGame(GameSession session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(session.getGameId());
+            out.writeUTF(session.getPlayer1Id());
+            out.writeUTF(session.getPlayer1Username());
+            out.writeUTF(session.getPlayer2Id());
+            out.writeUTF(session.getPlayer2Username());
+            out.writeByte(moveCode(session.getState().player1Move()));
+            out.writeByte(moveCode(session.getState().player2Move()));
+            out.writeUTF(session.getResult());
+            out.writeInt(session.getPlayer1EloDelta());
+            out.writeInt(session.getPlayer2EloDelta());
+            out.writeLong(session.getCreatedAt().getEpochSecond());
+            out.writeInt(session.getCreatedAt().getNano());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode game session", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameSession decodeGame(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String gameId = in.readUTF();
+        GamePlayer player1 = new GamePlayer(in.readUTF(), in.readUTF());
+        GamePlayer player2 = new GamePlayer(in.readUTF(), in.readUTF());
+
+        GameSession session = new GameSession(gameId, player1, player2);
+        Move player1Move = Move.fromCode(in.readByte());
+        Move player2Move = Move.fromCode(in.readByte());
+        if (player1Move != null) session.submitMove(player1.getUserId(), player1Move);
+        if (player2Move != null) session.submitMove(player2.getUserId(), player2Move);
+        session.forfeit();
+        session.setResult(in.readUTF());
+        session.setPlayer1EloDelta(in.readInt());
+        session.setPlayer2EloDelta(in.readInt());
+        session.setCreatedAt(Instant.ofEpochSecond(in.readLong(), in.readInt()));
+        return session;
+    }
+
+    // -1 for the missing move of a forfeited game
+    private static int moveCode(Move move) {
+        return move != null ? move.code() : -1;
+    }
+
+    private static byte[] encodeGameId(String gameId) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(gameId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode outbox tombstone", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeAck(String gameId, String userId) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(gameId);
+            out.writeUTF(userId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode outbox ack", e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,329 @@
+package com.michaeldavidsim.ratedrps_server.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.service.GameService.PlayerStatsDelta;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+// Write-behind persistence for finished games. Resolution records the game in the
+// outbox and enqueues it; a single worker drains the queue in batches, bulk-inserts
+// the match rows and applies one stats RPC per player per batch, issued concurrently.
+// Server errors, 429s and I/O failures are retried; anything still failing stays in
+// the outbox and is picked up again by retryPending(). A 4xx is not retried: a
+// rejected bulk insert is split until the offending game is found, and that game, or
+// a player's rejected stats update, is written to the dead-letter file instead.
+@Service
+public class GamePersistencePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(GamePersistencePipeline.class);
+
+    private final GameService gameService;
+    private final GameOutbox outbox;
+    private final BlockingQueue<GameSession> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final int statsConcurrency;
+
+    private final Timer flushTimer;
+    private final Counter failedWrites;
+    private final Counter deferred;
+    private final Counter deadLettered;
+    private final Path deadLetterPath;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public GamePersistencePipeline(GameService gameService,
+                                   GameOutbox outbox,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${persistence.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${persistence.batch-size:50}") int batchSize,
+                                   @Value("${persistence.flush-interval-ms:200}") long flushIntervalMs,
+                                   @Value("${persistence.max-retries:3}") int maxRetries,
+                                   @Value("${persistence.retry-backoff-ms:250}") long retryBackoffMs,
+                                   @Value("${persistence.stats-concurrency:8}") int statsConcurrency,
+                                   @Value("${persistence.dead-letter-path:data/game-dead-letters.jsonl}") String deadLetterPath) {
+        this.gameService = gameService;
+        this.outbox = outbox;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.statsConcurrency = statsConcurrency;
+        this.deadLetterPath = Path.of(deadLetterPath);
+
+        Gauge.builder("ratedrps.persistence.queue.depth", queue, BlockingQueue::size)
+            .description("Finished games waiting to be written to Supabase")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("ratedrps.persistence.flush.latency")
+            .description("Time to write one batch of finished games")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.failedWrites = Counter.builder("ratedrps.persistence.failed")
+            .description("Batch writes that failed after all retries and were left in the outbox")
+            .register(meterRegistry);
+        this.deferred = Counter.builder("ratedrps.persistence.deferred")
+            .description("Games left in the outbox for a later retry because the queue was full")
+            .register(meterRegistry);
+        this.deadLettered = Counter.builder("ratedrps.persistence.dead-lettered")
+            .description("Match rows or stats updates Supabase rejected, written to the dead-letter file")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "game-persistence");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // completes once the game is synced to the outbox, or straight away if it could not
+    // be recorded; the players are only told the result after that
+    public CompletableFuture<Void> submit(GameSession session) {
+        CompletableFuture<Boolean> recorded;
+        try {
+            recorded = outbox.record(session);
+            if (!recorded.getNow(true)) return CompletableFuture.completedFuture(null); // already being written
+        } catch (RuntimeException e) {
+            logger.error("Failed to record game {} in outbox", session.getGameId(), e);
+            recorded = null;
+        }
+        boolean durable = recorded != null;
+
+        // the players' next games are rated from the cache, which can't wait for the
+        // write below to land
+        gameService.applyToCachedStats(session);
+
+        if (!durable) {
+            // still try to write it, just without the durability guarantee
+            if (!queue.offer(session)) {
+                logger.error("Persistence queue full, dropping game {}", session.getGameId());
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!queue.offer(session)) {
+            // the game is durable in the outbox; let the retry sweep pick it up
+            outbox.release(session.getGameId());
+            deferred.increment();
+        }
+        return recorded.handle((synced, error) -> {
+            if (error != null) logger.error("Failed to sync game {} to outbox", session.getGameId(), error);
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.retry-interval-ms:30000}")
+    public void retryPending() {
+        for (GameSession session : outbox.claimRetryable()) {
+            if (!queue.offer(session)) {
+                outbox.release(session.getGameId());
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<GameSession> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                GameSession first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    GameSession next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in persistence worker", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<GameSession> batch) {
+        try {
+            flushTimer.record(() -> write(batch));
+        } finally {
+            for (GameSession session : batch) {
+                outbox.release(session.getGameId());
+            }
+        }
+    }
+
+    private void write(List<GameSession> batch) {
+        insertMatches(batch)
+            .collectList()
+            .flatMapMany(rejected -> {
+                List<GameSession> inserted = new ArrayList<>(batch);
+                for (GameSession game : rejected) {
+                    inserted.remove(game);
+                    deadLetterGame(game);
+                }
+                return Flux.fromIterable(gameService.aggregatePlayerStats(inserted, outbox::isStatsApplied));
+            })
+            .flatMap(delta -> gameService.applyPlayerStats(delta)
+                .retryWhen(withRetries("update stats for " + delta.userId()))
+                .doOnSuccess(ignored -> outbox.ackStats(delta.gameIds(), delta.userId()))
+                .onErrorResume(e -> {
+                    if (isRejected(e)) {
+                        deadLetterStats(delta, batch, e);
+                    } else {
+                        logger.error("Failed to update stats for {}", delta.userId(), e);
+                        failedWrites.increment();
+                    }
+                    return Mono.empty();
+                }), statsConcurrency)
+            .then()
+            .onErrorResume(e -> {
+                logger.error("Failed to insert {} matches", batch.size(), e);
+                failedWrites.increment();
+                return Mono.empty();
+            })
+            .block();
+    }
+
+    // the bulk insert is all-or-nothing, so one bad row would sink every batch it
+    // joined; a rejected batch is halved until the rows Supabase refuses are isolated,
+    // and those are emitted for dead-lettering
+    private Flux<GameSession> insertMatches(List<GameSession> games) {
+        return gameService.saveMatchesToDatabase(games)
+            .retryWhen(withRetries("insert " + games.size() + " matches"))
+            .thenMany(Flux.<GameSession>empty())
+            .onErrorResume(GamePersistencePipeline::isRejected, e -> {
+                if (games.size() == 1) {
+                    logger.error("Supabase rejected match {}", games.get(0).getGameId(), e);
+                    return Flux.just(games.get(0));
+                }
+                int half = games.size() / 2;
+                return insertMatches(games.subList(0, half))
+                    .concatWith(insertMatches(games.subList(half, games.size())));
+            });
+    }
+
+    // the game is never written, so neither player's stats are either
+    private void deadLetterGame(GameSession game) {
+        writeDeadLetter(game, "insert", null);
+        outbox.discard(game.getGameId());
+        gameService.discardCachedStats(game.getPlayer1Id());
+        gameService.discardCachedStats(game.getPlayer2Id());
+    }
+
+    // the match rows are in, only this player's stats are refused; the games count as
+    // done for them so the outbox can let go of them
+    private void deadLetterStats(PlayerStatsDelta delta, List<GameSession> batch, Throwable error) {
+        logger.error("Supabase rejected stats update for {}", delta.userId(), error);
+        for (GameSession game : batch) {
+            if (delta.gameIds().contains(game.getGameId())) {
+                writeDeadLetter(game, "stats", delta.userId());
+            }
+        }
+        outbox.ackStats(delta.gameIds(), delta.userId());
+        gameService.discardCachedStats(delta.userId());
+    }
+
+    private synchronized void writeDeadLetter(GameSession game, String stage, String userId) {
+        deadLettered.increment();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("stage", stage);
+        entry.put("userId", userId);
+        entry.put("deadLetteredAt", Instant.now().toString());
+        entry.put("match", gameService.toMatchRow(game));
+
+        String line = null;
+        try {
+            line = mapper.writeValueAsString(entry) + System.lineSeparator();
+            if (deadLetterPath.getParent() != null) Files.createDirectories(deadLetterPath.getParent());
+            Files.writeString(deadLetterPath, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // the log line is then the only copy
+            logger.error("Failed to write dead letter {}", line != null ? line.strip() : game.getGameId(), e);
+        }
+    }
+
+    private Retry withRetries(String what) {
+        return Retry.backoff(maxRetries, Duration.ofMillis(retryBackoffMs))
+            .filter(GamePersistencePipeline::isRetryable)
+            .doBeforeRetry(signal -> logger.warn("Failed to {} (attempt {}), retrying", what, signal.totalRetries() + 1))
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    // Supabase was unreachable, timed out, failed or asked us to slow down
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || isTransientClientError(response);
+        }
+        return error instanceof WebClientRequestException
+            || error instanceof IOException
+            || error instanceof TimeoutException;
+    }
+
+    // Supabase refused the request itself, so sending it again can't succeed
+    static boolean isRejected(Throwable error) {
+        return error instanceof WebClientResponseException response
+            && response.getStatusCode().is4xxClientError()
+            && !isTransientClientError(response);
+    }
+
+    private static boolean isTransientClientError(WebClientResponseException response) {
+        int status = response.getStatusCode().value();
+        return status == 408 || status == 429;
+    }
+}
@@ -1,20 +1,25 @@
 package com.michaeldavidsim.ratedrps_server.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiPredicate;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.michaeldavidsim.ratedrps_server.model.GameSession;
 
+import reactor.core.publisher.Mono;
+
 @Service
 public class GameService {
     
@@ -22,6 +27,7 @@ public class GameService {
     private final UserService userService;
     private final String supabaseMatchesEndpoint;
     private final ObjectMapper mapper;
+    private final HttpHeaders insertHeaders;
 
     public GameService(@Autowired SupabaseClientService clientService,
                         @Autowired UserService userService,
@@ -30,14 +36,97 @@ public class GameService {
         this.userService = userService;
         this.supabaseMatchesEndpoint = supabaseMatchesEndpoint;
         this.mapper = new ObjectMapper();
+
+        HttpHeaders headers = clientService.createAuthenticatedHeaders();
+        headers.set("Prefer", "resolution=ignore-duplicates,return=minimal");
+        this.insertHeaders = HttpHeaders.readOnlyHttpHeaders(headers);
     }
 
-    public void finalizeGame(GameSession session) {
-        saveMatchToDatabase(session);
-        updatePlayerStats(session);
+    // gameIds lists every game folded into this delta, so callers can acknowledge them individually
+    public record PlayerStatsDelta(String userId, int wins, int losses, int draws, int elo, List<String> gameIds) {
+
+        PlayerStatsDelta(String userId) {
+            this(userId, 0, 0, 0, 0, new ArrayList<>());
+        }
+
+        PlayerStatsDelta plus(String gameId, int winDelta, int lossDelta, int drawDelta, int eloDelta) {
+            gameIds.add(gameId);
+            return new PlayerStatsDelta(userId, wins + winDelta, losses + lossDelta, draws + drawDelta, elo + eloDelta, gameIds);
+        }
+    }
+
+    // one PostgREST bulk insert for the whole batch; duplicates are ignored so a retried batch is safe
+    public Mono<Void> saveMatchesToDatabase(List<GameSession> sessions) {
+        List<Map<String, Object>> rows = new ArrayList<>(sessions.size());
+        for (GameSession session : sessions) {
+            rows.add(toMatchRow(session));
+        }
+
+        String jsonPayload;
+        try {
+            jsonPayload = mapper.writeValueAsString(rows);
+        } catch (JsonProcessingException e) {
+            return Mono.error(new RuntimeException("Failed to serialize game sessions", e));
+        }
+
+        return clientService.getWebClient().post()
+            .uri(supabaseMatchesEndpoint)
+            .headers(headers -> headers.addAll(insertHeaders))
+            .bodyValue(jsonPayload)
+            .retrieve()
+            .toBodilessEntity()
+            .flatMap(response -> {
+                if (response.getStatusCode() != HttpStatus.CREATED) {
+                    return Mono.error(new RuntimeException("Failed to finalize game sessions: " + response.getStatusCode()));
+                }
+                return Mono.<Void>empty();
+            });
+    }
+
+    // folds every game in the batch into a single stats delta per player, skipping
+    // (gameId, userId) pairs that were already applied on an earlier attempt
+    public Collection<PlayerStatsDelta> aggregatePlayerStats(List<GameSession> sessions,
+                                                            BiPredicate<String, String> alreadyApplied) {
+        Map<String, PlayerStatsDelta> deltas = new LinkedHashMap<>();
+        for (GameSession session : sessions) {
+            String result = session.getResult();
+            boolean draw = "draw".equals(result);
+            boolean player1Won = !draw && result.equals(session.getPlayer1Id());
+
+            boolean player2Won = !draw && !player1Won;
+
+            if (!alreadyApplied.test(session.getGameId(), session.getPlayer1Id())) {
+                addStats(deltas, session.getGameId(), session.getPlayer1Id(), player1Won, player2Won, draw, session.getPlayer1EloDelta());
+            }
+            if (!alreadyApplied.test(session.getGameId(), session.getPlayer2Id())) {
+                addStats(deltas, session.getGameId(), session.getPlayer2Id(), player2Won, player1Won, draw, session.getPlayer2EloDelta());
+            }
+        }
+        return deltas.values();
     }
 
-    private void saveMatchToDatabase(GameSession session) {
+    public void applyToCachedStats(GameSession session) {
+        for (PlayerStatsDelta delta : aggregatePlayerStats(List.of(session), (gameId, userId) -> false)) {
+            userService.applyCachedStats(delta.userId(), delta.wins(), delta.losses(), delta.draws(), delta.elo());
+        }
+    }
+
+    // a write that will never land is taken back out of the cache by reloading the user
+    public void discardCachedStats(String userId) {
+        userService.evictCached(userId);
+    }
+
+    public Mono<Void> applyPlayerStats(PlayerStatsDelta delta) {
+        return userService.updateUserStats(delta.userId(), delta.wins(), delta.losses(), delta.draws(), delta.elo());
+    }
+
+    private void addStats(Map<String, PlayerStatsDelta> deltas, String gameId, String userId,
+                          boolean won, boolean lost, boolean drew, int eloDelta) {
+        PlayerStatsDelta current = deltas.computeIfAbsent(userId, PlayerStatsDelta::new);
+        deltas.put(userId, current.plus(gameId, won ? 1 : 0, lost ? 1 : 0, drew ? 1 : 0, eloDelta));
+    }
+
+    Map<String, Object> toMatchRow(GameSession session) {
         Map<String, Object> payload = new HashMap<>();
         payload.put("id", session.getGameId());
         payload.put("player1_id", session.getPlayer1Id());
@@ -52,38 +141,6 @@ public class GameService {
         String result = session.getResult();
         payload.put("winner_id", "draw".equals(result) ? null : result);
         payload.put("created_at", session.getCreatedAt().toString());
-
-        String jsonPayload;
-        try {
-            jsonPayload = mapper.writeValueAsString(payload);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize game session", e);
-        }
-
-        HttpHeaders headers = clientService.createAuthenticatedHeaders();
-        HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
-        
-        ResponseEntity<String> response = clientService.getRestTemplate().postForEntity(
-            supabaseMatchesEndpoint, 
-            entity, 
-            String.class
-        );
-        
-        if (response.getStatusCode() != HttpStatus.CREATED) {
-            throw new RuntimeException("Failed to finalize game session: " + response.getStatusCode());
-        }
-    }
-
-    private void updatePlayerStats(GameSession session) {
-        if ("draw".equals(session.getResult())) {
-            userService.updateUserStats(session.getPlayer1Id(), 0, 0, 1, session.getPlayer1EloDelta());
-            userService.updateUserStats(session.getPlayer2Id(), 0, 0, 1, session.getPlayer2EloDelta());
-        } else if (session.getResult().equals(session.getPlayer1Id())) {
-            userService.updateUserStats(session.getPlayer1Id(), 1, 0, 0, session.getPlayer1EloDelta());
-            userService.updateUserStats(session.getPlayer2Id(), 0, 1, 0, session.getPlayer2EloDelta());
-        } else {
-            userService.updateUserStats(session.getPlayer1Id(), 0, 1, 0, session.getPlayer1EloDelta());
-            userService.updateUserStats(session.getPlayer2Id(), 1, 0, 0, session.getPlayer2EloDelta());
-        }
+        return payload;
     }
-}
\ No newline at end of file
+}
@@ -6,23 +6,40 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 @Service
 public class SupabaseClientService {
     
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
     private final String supabaseUrl;
     private final String serviceRoleKey;
 
-    public SupabaseClientService(RestTemplate restTemplate,
-                                @Value("${supabase.url}") String supabaseUrl,
+    // built once and shared; read-only so no caller can leak changes into another request
+    private final HttpHeaders jsonHeaders;
+    private final HttpHeaders readHeaders;
+    private final HttpHeaders storageHeaders;
+
+    public SupabaseClientService(WebClient supabaseWebClient,
+                                 @Value("${supabase.url}") String supabaseUrl,
                                  @Value("${supabase.service-role-key}") String serviceRoleKey) {
-        this.restTemplate = restTemplate;
+        this.webClient = supabaseWebClient;
         this.supabaseUrl = supabaseUrl;
         this.serviceRoleKey = serviceRoleKey;
+
+        HttpHeaders json = createAuthenticatedHeaders();
+        this.jsonHeaders = HttpHeaders.readOnlyHttpHeaders(json);
+
+        HttpHeaders read = createAuthenticatedHeaders();
+        read.setContentType(null);
+        this.readHeaders = HttpHeaders.readOnlyHttpHeaders(read);
+
+        HttpHeaders storage = new HttpHeaders();
+        storage.setBearerAuth(serviceRoleKey);
+        this.storageHeaders = HttpHeaders.readOnlyHttpHeaders(storage);
     }
 
+    // mutable copy for requests that need extra headers
     public HttpHeaders createAuthenticatedHeaders() {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -32,10 +49,14 @@ public class SupabaseClientService {
         return headers;
     }
 
-    public RestTemplate getRestTemplate() {
-        return restTemplate;
+    public HttpHeaders getJsonHeaders() { return jsonHeaders; }
+    public HttpHeaders getReadHeaders() { return readHeaders; }
+    public HttpHeaders getStorageHeaders() { return storageHeaders; }
+
+    public WebClient getWebClient() {
+        return webClient;
     }
 
     public String getSupabaseUrl() { return supabaseUrl; }
     public String getServiceRoleKey() { return serviceRoleKey; }
-}
\ No newline at end of file
+}
@@ -1,23 +1,26 @@
 package com.michaeldavidsim.ratedrps_server.service;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.michaeldavidsim.ratedrps_server.model.User;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
 @Service
 public class UserService {
     
@@ -25,39 +28,63 @@ public class UserService {
     private final String supabaseUsersEndpoint;
     private final String supabaseIncrementUserStatsEndpoint;
     private final ObjectMapper mapper;
+    private final UserStatsBatchLoader batchLoader;
+    private final AsyncCache<String, User> userCache;
 
     public UserService(@Autowired SupabaseClientService clientService,
+                       @Autowired UserStatsBatchLoader batchLoader,
+                       @Autowired MeterRegistry meterRegistry,
                        @Value("${supabase.users-endpoint}") String supabaseUsersEndpoint,
-                       @Value("${supabase.increment-user-stats-endpoint}") String supabaseIncrementUserStatsEndpoint) {
+                       @Value("${supabase.increment-user-stats-endpoint}") String supabaseIncrementUserStatsEndpoint,
+                       @Value("${user-cache.max-size:10000}") long cacheMaxSize,
+                       @Value("${user-cache.ttl-seconds:300}") long cacheTtlSeconds) {
         this.clientService = clientService;
+        this.batchLoader = batchLoader;
         this.supabaseUsersEndpoint = supabaseUsersEndpoint;
         this.supabaseIncrementUserStatsEndpoint = supabaseIncrementUserStatsEndpoint;
         this.mapper = new ObjectMapper();
+        this.userCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+            .recordStats()
+            .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache, "userStats");
     }
 
-
+    // cached users are shared, so callers must treat them as read-only
     public User getUserStats(String userId) {
-        HttpHeaders headers = clientService.createAuthenticatedHeaders();
-        headers.setContentType(null);
-        
-        String url = String.format("%s?id=eq.%s", supabaseUsersEndpoint, userId);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
+        try {
+            return getUserStatsAsync(userId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
 
-        ResponseEntity<User[]> response = clientService.getRestTemplate().exchange(
-            url,
-            HttpMethod.GET,
-            entity,
-            User[].class
-        );
+    // misses go through the batch loader, which collapses and batches them
+    public CompletableFuture<User> getUserStatsAsync(String userId) {
+        return userCache.get(userId, (id, executor) -> batchLoader.load(id));
+    }
 
-        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null || response.getBody().length == 0) {
-            throw new RuntimeException("Failed to fetch user stats or user not found: " + response.getStatusCode());
-        }
+    // applied when a game is submitted for persistence rather than when its stats RPC
+    // succeeds, so a player who starts another game straight away is rated with it;
+    // a user who is not cached is read from Supabase on their next lookup
+    public void applyCachedStats(String userId, int winDelta, int lossDelta, int drawDelta, int eloDelta) {
+        userCache.asMap().computeIfPresent(userId, (id, cached) -> cached.thenApply(user -> {
+            User updated = user.copy();
+            updated.setWins(user.getWins() + winDelta);
+            updated.setLosses(user.getLosses() + lossDelta);
+            updated.setDraws(user.getDraws() + drawDelta);
+            updated.setElo(user.getElo() + eloDelta);
+            return updated;
+        }));
+    }
 
-        return response.getBody()[0];
+    public void evictCached(String userId) {
+        userCache.synchronous().invalidate(userId);
     }
 
-    public void updateUserStats(String userId, int winDelta, int lossDelta, int drawDelta, int eloDelta) {
+    public Mono<Void> updateUserStats(String userId, int winDelta, int lossDelta, int drawDelta, int eloDelta) {
         Map<String, Object> payload = new HashMap<>();
         payload.put("uuid", userId);
         payload.put("win_delta", winDelta);
@@ -69,42 +96,46 @@ public class UserService {
         try {
             jsonPayload = mapper.writeValueAsString(payload);
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize user stats", e);
+            return Mono.error(new RuntimeException("Failed to serialize user stats", e));
         }
 
-        HttpHeaders headers = clientService.createAuthenticatedHeaders();
-        HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
-        
-        ResponseEntity<String> response = clientService.getRestTemplate().postForEntity(
-            supabaseIncrementUserStatsEndpoint, 
-            entity, 
-            String.class
-        );
-        
-        if (response.getStatusCode() != HttpStatus.NO_CONTENT) {
-            throw new RuntimeException("Failed to update user stats: " + response.getStatusCode());
-        }
+        return clientService.getWebClient().post()
+            .uri(supabaseIncrementUserStatsEndpoint)
+            .headers(headers -> headers.addAll(clientService.getJsonHeaders()))
+            .bodyValue(jsonPayload)
+            .retrieve()
+            .toBodilessEntity()
+            .flatMap(response -> {
+                if (response.getStatusCode() != HttpStatus.NO_CONTENT) {
+                    return Mono.error(new RuntimeException("Failed to update user stats: " + response.getStatusCode()));
+                }
+                // the cached copy already took these deltas in applyCachedStats
+                return Mono.<Void>empty();
+            });
     }
 
-    public String updateUserAvatarUrl(String userId, String publicUrl) throws IOException {
-        HttpHeaders headers = clientService.createAuthenticatedHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    public Mono<String> updateUserAvatarUrl(String userId, String publicUrl) {
         String url = String.format("%s?id=eq.%s", supabaseUsersEndpoint, userId);
         Map<String, String> payload = new HashMap<>();
         payload.put("avatar_url", publicUrl);
-        String jsonPayload = mapper.writeValueAsString(payload);
-        HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
-        ResponseEntity<String> response = clientService.getRestTemplate().exchange(
-            url, 
-            HttpMethod.PATCH, 
-            entity, 
-            String.class
-        );
-
-        if (response.getStatusCode() != HttpStatus.NO_CONTENT) {
-            throw new RuntimeException("Failed to update user avatar URL: " + response.getStatusCode());
+        String jsonPayload;
+        try {
+            jsonPayload = mapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
         }
-        
-        return publicUrl;
+
+        return clientService.getWebClient().patch()
+            .uri(url)
+            .headers(headers -> headers.addAll(clientService.getJsonHeaders()))
+            .bodyValue(jsonPayload)
+            .retrieve()
+            .toBodilessEntity()
+            .flatMap(response -> {
+                if (response.getStatusCode() != HttpStatus.NO_CONTENT) {
+                    return Mono.error(new RuntimeException("Failed to update user avatar URL: " + response.getStatusCode()));
+                }
+                return Mono.just(publicUrl);
+            });
     }
 }
@@ -0,0 +1,156 @@
+package com.michaeldavidsim.ratedrps_server.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.michaeldavidsim.ratedrps_server.model.User;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+
+// Loads users from Supabase with request collapsing: concurrent loads of the same id
+// share one future, and distinct ids arriving within user-cache.batch-window-ms go
+// out together as a single users?id=in.(...) query. Ids are spliced into that filter
+// as-is, so anything that isn't a canonical UUID is refused before it can join a batch.
+@Component
+public class UserStatsBatchLoader {
+
+    private static final Pattern USER_ID = Pattern.compile(
+        "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private final SupabaseClientService clientService;
+    private final String supabaseUsersEndpoint;
+    private final long batchWindowMs;
+    private final int maxBatchSize;
+
+    private final Map<String, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+    private final Queue<String> pendingIds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService batchScheduler;
+
+    private final Counter collapsed;
+    private final DistributionSummary batchSizes;
+
+    public UserStatsBatchLoader(SupabaseClientService clientService,
+                                MeterRegistry meterRegistry,
+                                @Value("${supabase.users-endpoint}") String supabaseUsersEndpoint,
+                                @Value("${user-cache.batch-window-ms:5}") long batchWindowMs,
+                                @Value("${user-cache.max-batch-size:100}") int maxBatchSize) {
+        this.clientService = clientService;
+        this.supabaseUsersEndpoint = supabaseUsersEndpoint;
+        this.batchWindowMs = batchWindowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.batchScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-stats-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.collapsed = Counter.builder("ratedrps.users.loads.collapsed")
+            .description("User lookups that joined an already in-flight request")
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("ratedrps.users.batch.size")
+            .description("Distinct users fetched per Supabase request")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchScheduler.shutdownNow();
+    }
+
+    public CompletableFuture<User> load(String userId) {
+        if (userId == null || !USER_ID.matcher(userId).matches()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid user id: " + userId));
+        }
+
+        CompletableFuture<User> created = new CompletableFuture<>();
+        CompletableFuture<User> existing = inFlight.putIfAbsent(userId, created);
+        if (existing != null) {
+            collapsed.increment();
+            return existing;
+        }
+        created.whenComplete((user, error) -> inFlight.remove(userId, created));
+
+        pendingIds.add(userId);
+        if (pendingCount.incrementAndGet() >= maxBatchSize) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            batchScheduler.schedule(this::flush, batchWindowMs, TimeUnit.MILLISECONDS);
+        }
+        return created;
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+
+        List<String> batch = new ArrayList<>();
+        String id;
+        while (batch.size() < maxBatchSize && (id = pendingIds.poll()) != null) {
+            batch.add(id);
+        }
+        if (batch.isEmpty()) return;
+        pendingCount.addAndGet(-batch.size());
+
+        // anything left over goes in the next window
+        if (pendingCount.get() > 0 && flushScheduled.compareAndSet(false, true)) {
+            batchScheduler.schedule(this::flush, batchWindowMs, TimeUnit.MILLISECONDS);
+        }
+
+        fetchBatch(batch);
+    }
+
+    private void fetchBatch(List<String> userIds) {
+        batchSizes.record(userIds.size());
+        fetchUsers(userIds)
+            .collectMap(User::getId)
+            .subscribe(users -> {
+                for (String userId : userIds) {
+                    CompletableFuture<User> future = inFlight.get(userId);
+                    if (future == null) continue;
+
+                    User user = users.get(userId);
+                    if (user != null) {
+                        future.complete(user);
+                    } else {
+                        future.completeExceptionally(new RuntimeException("User not found: " + userId));
+                    }
+                }
+            }, error -> {
+                for (String userId : userIds) {
+                    CompletableFuture<User> future = inFlight.get(userId);
+                    if (future != null) future.completeExceptionally(error);
+                }
+            });
+    }
+
+    public Flux<User> fetchUsers(List<String> userIds) {
+        String url = userIds.size() == 1
+            ? String.format("%s?id=eq.%s", supabaseUsersEndpoint, userIds.get(0))
+            : String.format("%s?id=in.(%s)", supabaseUsersEndpoint, String.join(",", userIds));
+
+        return clientService.getWebClient().get()
+            .uri(url)
+            .headers(headers -> headers.addAll(clientService.getReadHeaders()))
+            .retrieve()
+            .bodyToFlux(User.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.GameState;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+
+// Fixed-layout frames for the rps.binary.v1 subprotocol, big-endian. Every frame
+// starts with a one-byte type. Binary clients are identified by the token they
+// connected with, so no frame carries the caller's own userId, and games are
+// addressed by the int handle sent in MATCH_FOUND rather than the gameId.
+//
+//   JOIN_LOBBY    0x01 | u16 len | username utf8
+//   LEAVE_LOBBY   0x02
+//   MAKE_MOVE     0x03 | i32 handle | u8 move
+//
+//   LOBBY_UPDATE  0x81 | i32 playersWaiting
+//   MATCH_FOUND   0x82 | i32 handle | u8 seat (1 or 2) | u16 len | opponent userId utf8 | u16 len | opponent username utf8
+//   GAME_UPDATE   0x83 | i32 handle | u8 final | u8 p1 move | u8 p2 move | u8 result [| i16 p1 delta | i16 p2 delta if final]
+//   ERROR         0x8F | u16 len | message utf8
+//
+// UserIds go as strings: they come from the token's subject, which nothing here
+// guarantees is a UUID. Moves are Move.code(), 0xFF when not yet made. Result is 0 pending, 1 player 1
+// won, 2 player 2 won, 3 draw.
+@Component
+public class BinaryFrameCodec implements FrameEncoder {
+
+    public static final byte JOIN_LOBBY = 0x01;
+    public static final byte LEAVE_LOBBY = 0x02;
+    public static final byte MAKE_MOVE = 0x03;
+
+    public static final byte LOBBY_UPDATE = (byte) 0x81;
+    public static final byte MATCH_FOUND = (byte) 0x82;
+    public static final byte GAME_UPDATE = (byte) 0x83;
+    public static final byte ERROR = (byte) 0x8F;
+
+    private static final byte NO_MOVE = (byte) 0xFF;
+    private static final byte RESULT_PENDING = 0;
+    private static final byte RESULT_DRAW = 3;
+
+    // throws BufferUnderflowException on a truncated frame
+    public static String readString(ByteBuffer frame) {
+        int length = frame.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public BinaryMessage lobbyUpdate(int playersWaiting) {
+        ByteBuffer frame = ByteBuffer.allocate(5);
+        frame.put(LOBBY_UPDATE).putInt(playersWaiting);
+        return new BinaryMessage(frame.flip());
+    }
+
+    @Override
+    public BinaryMessage matchFound(GameSession game, boolean forPlayer1) {
+        GamePlayer opponent = forPlayer1 ? game.getPlayer2() : game.getPlayer1();
+        byte[] opponentId = opponent.getUserId().getBytes(StandardCharsets.UTF_8);
+        byte[] username = opponent.getUsername().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer frame = ByteBuffer.allocate(1 + 4 + 1 + 2 + opponentId.length + 2 + username.length);
+        frame.put(MATCH_FOUND)
+            .putInt(game.getHandle())
+            .put((byte) (forPlayer1 ? 1 : 2));
+        putString(frame, opponentId);
+        putString(frame, username);
+        return new BinaryMessage(frame.flip());
+    }
+
+    @Override
+    public BinaryMessage gameUpdate(GameSession game, boolean isFinal) {
+        GameState state = game.getState();
+        ByteBuffer frame = ByteBuffer.allocate(isFinal ? 13 : 9);
+        frame.put(GAME_UPDATE)
+            .putInt(game.getHandle())
+            .put((byte) (isFinal ? 1 : 0))
+            .put(moveCode(state.player1Move()))
+            .put(moveCode(state.player2Move()))
+            .put(state.isResolved() ? resultCode(state.outcome()) : RESULT_PENDING);
+        if (isFinal) {
+            frame.putShort((short) game.getPlayer1EloDelta())
+                .putShort((short) game.getPlayer2EloDelta());
+        }
+        return new BinaryMessage(frame.flip());
+    }
+
+    @Override
+    public BinaryMessage error(String message) {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(1 + 2 + text.length);
+        frame.put(ERROR);
+        putString(frame, text);
+        return new BinaryMessage(frame.flip());
+    }
+
+    private static void putString(ByteBuffer frame, byte[] utf8) {
+        frame.putShort((short) utf8.length).put(utf8);
+    }
+
+    private static byte moveCode(Move move) {
+        return move != null ? move.code() : NO_MOVE;
+    }
+
+    private static byte resultCode(byte outcome) {
+        return outcome == Move.DRAW ? RESULT_DRAW : outcome;
+    }
+}
@@ -0,0 +1,11 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+// What an outbound queue does with a frame it cannot buffer.
+public enum DeliveryPolicy {
+    // only the newest frame matters (LOBBY_UPDATE); a queued one is replaced, never piled up
+    LATEST_ONLY,
+    // dropped when the buffer is full (ERROR)
+    DROPPABLE,
+    // never dropped (MATCH_FOUND, GAME_UPDATE); a client that cannot keep up is disconnected
+    REQUIRED
+}
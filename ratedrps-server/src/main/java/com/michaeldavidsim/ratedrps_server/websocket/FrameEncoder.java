@@ -0,0 +1,19 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.io.IOException;
+
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+
+// Builds the outbound frames for one wire protocol.
+public interface FrameEncoder {
+
+    WebSocketMessage<?> lobbyUpdate(int playersWaiting) throws IOException;
+
+    WebSocketMessage<?> matchFound(GameSession game, boolean forPlayer1) throws IOException;
+
+    WebSocketMessage<?> gameUpdate(GameSession game, boolean isFinal) throws IOException;
+
+    WebSocketMessage<?> error(String message) throws IOException;
+}
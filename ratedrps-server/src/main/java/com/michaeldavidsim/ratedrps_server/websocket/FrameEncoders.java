@@ -0,0 +1,23 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+@Component
+public class FrameEncoders {
+
+    private final FrameEncoder[] byProtocol = new FrameEncoder[WireProtocol.values().length];
+
+    public FrameEncoders(JsonFrameEncoder jsonEncoder, BinaryFrameCodec binaryCodec) {
+        byProtocol[WireProtocol.JSON.ordinal()] = jsonEncoder;
+        byProtocol[WireProtocol.BINARY.ordinal()] = binaryCodec;
+    }
+
+    public FrameEncoder forProtocol(WireProtocol protocol) {
+        return byProtocol[protocol.ordinal()];
+    }
+
+    public FrameEncoder forSession(WebSocketSession session) {
+        return forProtocol(WireProtocol.of(session));
+    }
+}
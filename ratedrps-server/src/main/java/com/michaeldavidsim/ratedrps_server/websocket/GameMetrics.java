@@ -0,0 +1,89 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.michaeldavidsim.ratedrps_server.matchmaking.MatchPair;
+import com.michaeldavidsim.ratedrps_server.matchmaking.Matchmaker;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Matchmaking and game latency. Every meter is registered up front and the record
+// calls only take primitives, so nothing is allocated per message; the gauges are
+// read from the live collections at scrape time.
+@Component
+public class GameMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWait;
+    private final Timer matchToFirstMove;
+    private final Timer moveToResolution;
+    private final Counter forfeits;
+
+    public GameMetrics(MeterRegistry meterRegistry, Matchmaker matchmaker) {
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("ratedrps.matchmaking.queue.depth", matchmaker, Matchmaker::size)
+            .description("Players waiting to be paired")
+            .register(meterRegistry);
+
+        this.queueWait = Timer.builder("ratedrps.matchmaking.queue.wait")
+            .description("Time from joining the matchmaking queue to being paired")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.matchToFirstMove = Timer.builder("ratedrps.game.first-move")
+            .description("Time from MATCH_FOUND to the first move of the game")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.moveToResolution = Timer.builder("ratedrps.game.resolution")
+            .description("Time from the first move of a game to its resolution")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.forfeits = Counter.builder("ratedrps.games.forfeited")
+            .description("Games resolved because the move deadline passed")
+            .register(meterRegistry);
+    }
+
+    // the handler owns these maps, so it hands them over once they exist
+    void bindGameState(Map<String, ?> lobbyPlayers, Map<String, ?> gameMap, Map<String, ?> gameRooms) {
+        Gauge.builder("ratedrps.lobby.size", lobbyPlayers, Map::size)
+            .description("Players in the lobby, queued or browsing")
+            .register(meterRegistry);
+        Gauge.builder("ratedrps.games.active", gameMap, Map::size)
+            .description("Games in progress")
+            .register(meterRegistry);
+        Gauge.builder("ratedrps.games.rooms", gameRooms, Map::size)
+            .description("Game rooms with at least one connected player")
+            .register(meterRegistry);
+    }
+
+    void matched(MatchPair pair) {
+        queueWait.record(pair.firstWaitMillis(), TimeUnit.MILLISECONDS);
+        queueWait.record(pair.secondWaitMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void firstMove(GameSession game) {
+        long matchedAt = game.getMatchedAtNanos();
+        if (matchedAt != 0) {
+            matchToFirstMove.record(game.getFirstMoveAtNanos() - matchedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void forfeited() {
+        forfeits.increment();
+    }
+
+    void resolved(GameSession game) {
+        // the first mover may not have published its timestamp yet
+        long firstMoveAt = game.getFirstMoveAtNanos();
+        if (firstMoveAt != 0) {
+            moveToResolution.record(System.nanoTime() - firstMoveAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
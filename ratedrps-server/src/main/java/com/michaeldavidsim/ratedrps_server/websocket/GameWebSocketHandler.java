@@ -1,56 +1,148 @@
 package com.michaeldavidsim.ratedrps_server.websocket;
 
-import java.util.HashMap;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michaeldavidsim.ratedrps_server.matchmaking.MatchPair;
+import com.michaeldavidsim.ratedrps_server.matchmaking.MatchTicket;
+import com.michaeldavidsim.ratedrps_server.matchmaking.Matchmaker;
 import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
 import com.michaeldavidsim.ratedrps_server.model.GameSession;
-import com.michaeldavidsim.ratedrps_server.model.User;
+import com.michaeldavidsim.ratedrps_server.model.Move;
 import com.michaeldavidsim.ratedrps_server.service.EloService;
-import com.michaeldavidsim.ratedrps_server.service.GameService;
+import com.michaeldavidsim.ratedrps_server.service.GamePersistencePipeline;
 import com.michaeldavidsim.ratedrps_server.service.UserService;
-
+import com.michaeldavidsim.ratedrps_server.timer.HashedTimingWheel;
+import com.michaeldavidsim.ratedrps_server.timer.HashedTimingWheel.Timeout;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundLimits.Check;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.JoinLobby;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.LeaveLobby;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.MakeMove;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.Unknown;
+
+import jakarta.annotation.PostConstruct;
+
+// Speaks both wire protocols on /ws/game: JSON text frames by default, fixed-layout
+// binary frames (BinaryFrameCodec) when the client negotiates rps.binary.v1.
 @Component
-public class GameWebSocketHandler extends TextWebSocketHandler {
+public class GameWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
 
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketHandler.class);
-    private final ObjectMapper mapper = new ObjectMapper();
 
     // Thread-safe collections
     private final Map<String, WebSocketSession> lobbyPlayers = new ConcurrentHashMap<>();
-    private final Queue<GamePlayer> matchmakingQueue = new ConcurrentLinkedQueue<>();
     private final Map<String, String> userGameMap = new ConcurrentHashMap<>();
     private final Map<String, Set<WebSocketSession>> gameRooms = new ConcurrentHashMap<>();
     private final Map<String, GameSession> gameMap = new ConcurrentHashMap<>();
+    private final Map<Integer, GameSession> gameHandles = new ConcurrentHashMap<>();
+    private final AtomicInteger nextGameHandle = new AtomicInteger();
+    private final Map<String, Timeout> moveDeadlines = new ConcurrentHashMap<>();
+    private final Map<String, Timeout> lobbyDeadlines = new ConcurrentHashMap<>();
+    // each user's newest connection; an older one still closing no longer owns their state
+    private final Map<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+    private final Map<String, Timeout> reconnectDeadlines = new ConcurrentHashMap<>();
 
     @Autowired
     private EloService eloService;
 
     @Autowired
-    private GameService gameService;
+    private GamePersistencePipeline persistencePipeline;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private Matchmaker matchmaker;
+
+    @Autowired
+    private LobbyUpdatePublisher lobbyUpdates;
+
+    @Autowired
+    private ExecutorService gameHandlerExecutor;
+
+    @Autowired
+    private OutboundSessions outbound;
+
+    @Autowired
+    private FrameEncoders encoders;
+
+    @Autowired
+    private JsonInboundDecoder inboundDecoder;
+
+    @Autowired
+    private GameMetrics metrics;
+
+    @Autowired
+    private InboundLimits inboundLimits;
+
+    @Autowired
+    private HashedTimingWheel gameTimers;
+
+    @Value("${game.move-timeout-ms:30000}")
+    private long moveTimeoutMs;
+
+    @Value("${lobby.idle-timeout-ms:600000}")
+    private long lobbyIdleTimeoutMs;
+
+    @Value("${game.reconnect-grace-ms:15000}")
+    private long reconnectGraceMs;
+
+    @PostConstruct
+    void init() {
+        metrics.bindGameState(lobbyPlayers, gameMap, gameRooms);
+        outbound.setStaleListener(this::evictStale);
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(WireProtocol.BINARY.getSubprotocol(), WireProtocol.JSON.getSubprotocol());
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        WireProtocol.bind(session);
+        inboundLimits.bind(session);
+        outbound.register(session);
+
+        String userId = (String) session.getAttributes().get("userId");
+        if (userId != null) {
+            WebSocketSession previous = userSessions.put(userId, session);
+            if (previous != null) supersede(userId, previous);
+            resumeGame(userId, session);
+        }
+        super.afterConnectionEstablished(session);
+    }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         logger.info("WebSocket connection closed: {}", session.getId());
+        inboundLimits.onClosed(status);
+        outbound.unregister(session);
         cleanupUserSession(session);
         super.afterConnectionClosed(session, status);
     }
@@ -58,248 +150,487 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     private void cleanupUserSession(WebSocketSession session) {
         String userId = (String) session.getAttributes().get("userId");
         if (userId == null) return;
+        if (!userSessions.remove(userId, session)) return;
 
         lobbyPlayers.remove(userId);
-        matchmakingQueue.remove(new GamePlayer(userId, "dummy")); // dummy username for removal
+        matchmaker.cancel(userId);
+        cancelLobbyExpiry(userId);
 
-        String gameId = userGameMap.remove(userId);
+        // the seat is held for the grace period so a reconnect can pick the game back up
+        String gameId = userGameMap.get(userId);
         if (gameId != null) {
             Set<WebSocketSession> sessions = gameRooms.get(gameId);
-            if (sessions != null) {
-                sessions.remove(session);
-                if (sessions.isEmpty()) {
-                    gameRooms.remove(gameId);
-                    gameMap.remove(gameId);
-                }
-            }
+            if (sessions != null) sessions.remove(session);
+            Timeout grace = gameTimers.schedule(() -> releaseSeat(userId, gameId),
+                reconnectGraceMs, TimeUnit.MILLISECONDS);
+            Timeout previous = reconnectDeadlines.put(userId, grace);
+            if (previous != null) previous.cancel();
+        }
+    }
+
+    // the heartbeat gave up on this connection: it leaves the lobby and its game seat
+    // is held, as on a close, without waiting for the close to reach us
+    private void evictStale(WebSocketSession session) {
+        cleanupUserSession(session);
+        broadcastLobbyUpdate();
+    }
+
+    // the user opened a new connection while an old one was still open (typically
+    // half-open after a network change); the new one takes over their lobby and game
+    private void supersede(String userId, WebSocketSession previous) {
+        if (lobbyPlayers.remove(userId, previous)) {
+            matchmaker.cancel(userId);
+            cancelLobbyExpiry(userId);
+            broadcastLobbyUpdate();
         }
+        String gameId = userGameMap.get(userId);
+        Set<WebSocketSession> sessions = gameId != null ? gameRooms.get(gameId) : null;
+        if (sessions != null) sessions.remove(previous);
+
+        gameHandlerExecutor.execute(() -> {
+            try {
+                previous.close(CloseStatus.NORMAL.withReason("Replaced by a newer connection"));
+            } catch (Exception e) {
+                logger.debug("Failed to close superseded session {}", previous.getId(), e);
+            }
+        });
+    }
+
+    // puts a reconnecting player back in their game without going through matchmaking:
+    // the game is announced again and its current state replayed
+    private boolean resumeGame(String userId, WebSocketSession session) throws Exception {
+        String gameId = userGameMap.get(userId);
+        if (gameId == null) return false;
+        GameSession gameSession = gameMap.get(gameId);
+        Set<WebSocketSession> sessions = gameRooms.get(gameId);
+        if (gameSession == null || sessions == null) return false;
+
+        cancelReconnectGrace(userId);
+        // resumed when the connection opened; the JOIN_LOBBY that follows needs no replay
+        if (!sessions.add(session)) return true;
+
+        logger.info("Resuming game {} for {}", gameId, userId);
+        sendMatchFound(session, gameSession, userId.equals(gameSession.getPlayer1Id()));
+        outbound.send(session, encoders.forSession(session).gameUpdate(gameSession, false), DeliveryPolicy.REQUIRED);
+        return true;
+    }
+
+    private void cancelReconnectGrace(String userId) {
+        Timeout grace = reconnectDeadlines.remove(userId);
+        if (grace != null) grace.cancel();
+    }
+
+    // grace period over without a reconnect: the player gives up their seat, and a game
+    // nobody holds a seat in any more is dropped
+    private void releaseSeat(String userId, String gameId) {
+        Timeout grace = reconnectDeadlines.get(userId);
+        if (grace == null || !grace.isExpired() || !reconnectDeadlines.remove(userId, grace)) return;
+        if (!userGameMap.remove(userId, gameId)) return;
+
+        GameSession game = gameMap.get(gameId);
+        Set<WebSocketSession> sessions = gameRooms.get(gameId);
+        if (game == null || (sessions != null && !sessions.isEmpty())) return;
+        if (gameId.equals(userGameMap.get(game.getPlayer1Id())) || gameId.equals(userGameMap.get(game.getPlayer2Id()))) return;
+
+        logger.info("Dropping game {}, both players left", gameId);
+        gameRooms.remove(gameId);
+        gameMap.remove(gameId);
+        gameHandles.remove(game.getHandle());
+        cancelMoveDeadline(gameId);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        logger.info("Received message: {}", message.getPayload());
-        Map<String, Object> payload = mapper.readValue(message.getPayload(), Map.class);
-        String type = (String) payload.get("type");
-
-        switch (type) {
-            case "JOIN_LOBBY" -> handleJoinLobby(session, payload);
-            case "LEAVE_LOBBY" -> handleLeaveLobby(session, payload);
-            case "MAKE_MOVE" -> handleMakeMove(session, payload);
-            default -> sendError(session, "Unknown message type: " + type);
+        outbound.touch(session);
+        if (!inboundLimits.allow(session, Check.FRAME)) return;
+        logger.debug("Received message: {}", message.getPayload());
+        InboundMessage inbound = inboundDecoder.decode(message.getPayload());
+
+        if (inbound instanceof JoinLobby join) {
+            if (admit(session, Check.LOBBY) && isOwnUserId(session, join.userId())) {
+                handleJoinLobby(session, join.userId(), join.username());
+            }
+        } else if (inbound instanceof LeaveLobby leave) {
+            if (admit(session, Check.LOBBY) && isOwnUserId(session, leave.userId())) handleLeaveLobby(leave.userId());
+        } else if (inbound instanceof MakeMove makeMove) {
+            if (admit(session, Check.MOVE) && isOwnUserId(session, makeMove.userId())) handleMakeMove(session, makeMove);
+        } else if (inbound instanceof Unknown unknown) {
+            sendError(session, "Unknown message type: " + unknown.type());
+        }
+    }
+
+    // binary clients are the user their token says they are
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        outbound.touch(session);
+        if (!inboundLimits.allow(session, Check.FRAME)) return;
+        ByteBuffer frame = message.getPayload();
+        String userId = (String) session.getAttributes().get("userId");
+        if (!frame.hasRemaining()) {
+            sendError(session, "Empty frame");
+            return;
         }
+
+        try {
+            byte type = frame.get();
+            if (!admit(session, checkFor(type))) return;
+
+            switch (type) {
+                case BinaryFrameCodec.JOIN_LOBBY -> handleJoinLobby(session, userId, BinaryFrameCodec.readString(frame));
+                case BinaryFrameCodec.LEAVE_LOBBY -> handleLeaveLobby(userId);
+                case BinaryFrameCodec.MAKE_MOVE -> {
+                    GameSession gameSession = gameHandles.get(frame.getInt());
+                    Move move = Move.fromCode(frame.get());
+                    if (move == null) {
+                        sendError(session, "Invalid MAKE_MOVE payload");
+                    } else {
+                        handleMakeMove(session, userId, gameSession, move);
+                    }
+                }
+                default -> sendError(session, "Unknown message type: " + type);
+            }
+        } catch (BufferUnderflowException e) {
+            sendError(session, "Truncated frame");
+        }
+    }
+
+    // JSON frames repeat the userId, but the connection acts only as the user its token
+    // named at the handshake, which is what userSessions and the cleanup on close key on
+    private boolean isOwnUserId(WebSocketSession session, String userId) throws Exception {
+        if (userId == null || userId.equals(session.getAttributes().get("userId"))) return true;
+        sendError(session, "userId does not match token");
+        return false;
+    }
+
+    private static Check checkFor(byte binaryType) {
+        return switch (binaryType) {
+            case BinaryFrameCodec.JOIN_LOBBY, BinaryFrameCodec.LEAVE_LOBBY -> Check.LOBBY;
+            case BinaryFrameCodec.MAKE_MOVE -> Check.MOVE;
+            default -> null;
+        };
+    }
+
+    // frames over the overall rate are dropped silently, so a flood gets nothing back;
+    // a lobby or move frame over its own limit is answered with an error
+    private boolean admit(WebSocketSession session, Check check) throws Exception {
+        if (check == null || inboundLimits.allow(session, check)) return true;
+        sendError(session, "Rate limit exceeded");
+        return false;
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        outbound.touch(session);
     }
 
-    private void handleJoinLobby(WebSocketSession session, Map<String, Object> payload) throws Exception {
-        String userId = (String) payload.get("userId");
-        String username = (String) payload.get("username");
+    private void handleJoinLobby(WebSocketSession session, String userId, String username) throws Exception {
         if (userId == null || userId.isBlank() || username == null || username.isBlank()) {
             sendError(session, "Missing or invalid userId or username");
             return;
         }
 
-        session.getAttributes().put("userId", userId);
-        lobbyPlayers.put(userId, session);
+        // a player still holding a seat (the client rejoins after every reconnect) is
+        // sent back to that game instead of being queued for a second one
+        if (resumeGame(userId, session)) return;
 
-        GamePlayer player = new GamePlayer(userId, username);
+        lobbyUpdates.forget(session);
+        lobbyPlayers.put(userId, session);
+        scheduleLobbyExpiry(userId, session);
 
-        if (!matchmakingQueue.contains(player)) {
-            matchmakingQueue.add(player);
+        if (matchmaker.isQueued(userId)) {
+            broadcastLobbyUpdate();
+            return;
         }
 
         broadcastLobbyUpdate();
-        tryMatchmake();
+
+        // the rating lookup completes on the HTTP client's event loop, so matching is
+        // handed off rather than run there; a player who left meanwhile is not queued
+        lookupRating(userId).thenAcceptAsync(rating -> {
+            if (lobbyPlayers.get(userId) != session) return;
+            try {
+                tryMatchmake(new MatchTicket(new GamePlayer(userId, username), rating));
+            } catch (Exception e) {
+                logger.error("Error matchmaking {}", userId, e);
+            }
+        }, gameHandlerExecutor);
+    }
+
+    private CompletableFuture<Integer> lookupRating(String userId) {
+        return userService.getUserStatsAsync(userId).handle((user, error) -> {
+            if (user != null) return user.getElo();
+            logger.warn("Could not fetch rating for {}, matching at default rating", userId, error);
+            return EloService.DEFAULT_RATING;
+        });
     }
 
 
-    private void handleLeaveLobby(WebSocketSession session, Map<String, Object> payload) throws Exception {
-        String userId = (String) payload.get("userId");
+    private void handleLeaveLobby(String userId) {
         if (userId != null) {
-            // create a dummy GamePlayer for removal since equals() is based on userId
-            matchmakingQueue.remove(new GamePlayer(userId, "dummy"));
-            lobbyPlayers.remove(userId);
+            matchmaker.cancel(userId);
+            WebSocketSession left = lobbyPlayers.remove(userId);
+            if (left != null) lobbyUpdates.forget(left);
+            cancelLobbyExpiry(userId);
             broadcastLobbyUpdate();
         }
     }
 
+    // a join (or rejoin) restarts the player's lobby clock
+    private void scheduleLobbyExpiry(String userId, WebSocketSession session) {
+        Timeout expiry = gameTimers.schedule(() -> expireFromLobby(userId, session),
+            lobbyIdleTimeoutMs, TimeUnit.MILLISECONDS);
+        Timeout previous = lobbyDeadlines.put(userId, expiry);
+        if (previous != null) previous.cancel();
+    }
 
-    private void tryMatchmake() throws Exception {
-        while (matchmakingQueue.size() >= 2) {
-            GamePlayer player1 = matchmakingQueue.poll();
-            GamePlayer player2 = matchmakingQueue.poll();
+    private void cancelLobbyExpiry(String userId) {
+        Timeout expiry = lobbyDeadlines.remove(userId);
+        if (expiry != null) expiry.cancel();
+    }
 
-            if (player1 == null || player2 == null) break;
+    private void expireFromLobby(String userId, WebSocketSession session) {
+        // a rejoin since this fired has scheduled a newer, still pending expiry
+        Timeout expiry = lobbyDeadlines.get(userId);
+        if (expiry == null || !expiry.isExpired() || !lobbyDeadlines.remove(userId, expiry)) return;
+        if (!lobbyPlayers.remove(userId, session)) return;
+        lobbyUpdates.forget(session);
 
-            WebSocketSession session1 = lobbyPlayers.get(player1.getUserId());
-            WebSocketSession session2 = lobbyPlayers.get(player2.getUserId());
+        matchmaker.cancel(userId);
+        broadcastLobbyUpdate();
+        logger.info("Removed {} from the lobby after {}ms idle", userId, lobbyIdleTimeoutMs);
+        try {
+            sendError(session, "Lobby timed out, join again to keep searching");
+        } catch (Exception e) {
+            logger.debug("Failed to notify {} of lobby expiry", userId, e);
+        }
+    }
 
-            if (session1 == null || session2 == null) {
-                if (session1 != null) matchmakingQueue.add(player1);
-                if (session2 != null) matchmakingQueue.add(player2);
-                continue;
+
+    private void tryMatchmake(MatchTicket ticket) throws Exception {
+        Optional<MatchPair> pair = matchmaker.enqueue(ticket);
+        if (pair.isPresent()) {
+            startMatch(pair.get());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${matchmaking.sweep-interval-ms:1000}")
+    public void sweepMatchmaking() {
+        for (MatchPair pair : matchmaker.sweep()) {
+            try {
+                startMatch(pair);
+            } catch (Exception e) {
+                logger.error("Error starting match from sweep", e);
             }
+        }
+    }
 
-            String gameId = UUID.randomUUID().toString();
-            userGameMap.put(player1.getUserId(), gameId);
-            userGameMap.put(player2.getUserId(), gameId);
+    private void startMatch(MatchPair pair) throws Exception {
+        GamePlayer player1 = pair.first().player();
+        GamePlayer player2 = pair.second().player();
 
-            Set<WebSocketSession> gameRoom = ConcurrentHashMap.newKeySet();
-            gameRoom.add(session1);
-            gameRoom.add(session2);
-            gameRooms.put(gameId, gameRoom);
+        WebSocketSession session1 = liveSession(player1.getUserId());
+        WebSocketSession session2 = liveSession(player2.getUserId());
 
-            GameSession gameSession = new GameSession(
-                gameId,
-                player1,
-                player2
-            );
-            gameMap.put(gameId, gameSession);
+        // a player left or went quiet between being queued and being paired; put the other one back
+        if (session1 == null || session2 == null) {
+            if (session1 != null) tryMatchmake(pair.first());
+            if (session2 != null) tryMatchmake(pair.second());
+            return;
+        }
 
-            sendMatchFound(session1, gameId, player2);
-            sendMatchFound(session2, gameId, player1);
+        logger.info("Matched {} and {} (rating gap {}, waited {}ms / {}ms)",
+            player1.getUserId(), player2.getUserId(), pair.ratingGap(),
+            pair.firstWaitMillis(), pair.secondWaitMillis());
+        metrics.matched(pair);
 
-            lobbyPlayers.remove(player1.getUserId());
-            lobbyPlayers.remove(player2.getUserId());
+        String gameId = UUID.randomUUID().toString();
+        userGameMap.put(player1.getUserId(), gameId);
+        userGameMap.put(player2.getUserId(), gameId);
 
-            broadcastLobbyUpdate();
-        }
+        Set<WebSocketSession> gameRoom = ConcurrentHashMap.newKeySet();
+        gameRoom.add(session1);
+        gameRoom.add(session2);
+        gameRooms.put(gameId, gameRoom);
+
+        GameSession gameSession = new GameSession(
+            gameId,
+            player1,
+            player2
+        );
+        gameSession.setHandle(nextGameHandle.incrementAndGet());
+        gameHandles.put(gameSession.getHandle(), gameSession);
+        gameSession.setPlayer1Rating(pair.first().rating());
+        gameSession.setPlayer2Rating(pair.second().rating());
+        gameMap.put(gameId, gameSession);
+        moveDeadlines.put(gameId, gameTimers.schedule(() -> forfeitGame(gameSession),
+            moveTimeoutMs, TimeUnit.MILLISECONDS));
+        prefetchRatings(gameSession);
+
+        sendMatchFound(session1, gameSession, true);
+        sendMatchFound(session2, gameSession, false);
+
+        lobbyPlayers.remove(player1.getUserId());
+        lobbyPlayers.remove(player2.getUserId());
+        cancelLobbyExpiry(player1.getUserId());
+        cancelLobbyExpiry(player2.getUserId());
+
+        broadcastLobbyUpdate();
     }
 
 
-    private void sendMatchFound(WebSocketSession session, String gameId, GamePlayer opponent) throws Exception {
-        Map<String, Object> matchFoundPayload = Map.of(
-            "type", "MATCH_FOUND",
-            "data", Map.of(
-                "gameId", gameId,
-                "opponentId", opponent.getUserId(),
-                "opponentUsername", opponent.getUsername()
-            )
-        );
-        session.sendMessage(new TextMessage(mapper.writeValueAsString(matchFoundPayload)));
+    // a lobby player whose connection has gone quiet since the last heartbeat sweep is
+    // evicted here rather than matched with someone who would then wait on them
+    private WebSocketSession liveSession(String userId) {
+        WebSocketSession session = lobbyPlayers.get(userId);
+        if (session == null || outbound.isLive(session, System.nanoTime())) return session;
+        // closed as well, or a late frame would revive a connection nothing tracks any more
+        evictStale(session);
+        outbound.close(session, CloseStatus.SESSION_NOT_RELIABLE.withReason("heartbeat timeout"));
+        return null;
     }
 
-    private void handleMakeMove(WebSocketSession session, Map<String, Object> payload) throws Exception {
-        String userId = (String) payload.get("userId");
-        String gameId = (String) payload.get("gameId");
-        String move = (String) payload.get("move");
+    // refreshes both ratings off the move path; if a lookup fails or is still running at
+    // resolution time, the rating captured when the player was queued is used instead
+    private void prefetchRatings(GameSession gameSession) {
+        userService.getUserStatsAsync(gameSession.getPlayer1Id()).whenComplete((user, error) -> {
+            if (user != null) gameSession.setPlayer1Rating(user.getElo());
+            else logger.warn("Rating prefetch failed for {}", gameSession.getPlayer1Id(), error);
+        });
+        userService.getUserStatsAsync(gameSession.getPlayer2Id()).whenComplete((user, error) -> {
+            if (user != null) gameSession.setPlayer2Rating(user.getElo());
+            else logger.warn("Rating prefetch failed for {}", gameSession.getPlayer2Id(), error);
+        });
+    }
+
+    private void sendMatchFound(WebSocketSession session, GameSession gameSession, boolean forPlayer1) throws Exception {
+        outbound.send(session, encoders.forSession(session).matchFound(gameSession, forPlayer1), DeliveryPolicy.REQUIRED);
+    }
 
-        if (userId == null || gameId == null || move == null) {
+    private void handleMakeMove(WebSocketSession session, MakeMove makeMove) throws Exception {
+        if (makeMove.userId() == null || makeMove.gameId() == null || makeMove.move() == null) {
             sendError(session, "Invalid MAKE_MOVE payload");
             return;
         }
 
-        GameSession gameSession = gameMap.get(gameId);
+        handleMakeMove(session, makeMove.userId(), gameMap.get(makeMove.gameId()), makeMove.move());
+    }
+
+    private void handleMakeMove(WebSocketSession session, String userId, GameSession gameSession, Move move) throws Exception {
         if (gameSession == null) {
             sendError(session, "Game not found");
             return;
         }
 
-        if (userId.equals(gameSession.getPlayer1Id())) {
-            gameSession.getPlayer1().setMove(move);
-        } else if (userId.equals(gameSession.getPlayer2Id())) {
-            gameSession.getPlayer2().setMove(move);
-        } else {
-            sendError(session, "User not part of this game");
-            return;
+        switch (gameSession.submitMove(userId, move)) {
+            case NOT_IN_GAME -> sendError(session, "User not part of this game");
+            case ALREADY_MOVED -> sendError(session, "Move already made");
+            case ALREADY_RESOLVED -> sendError(session, "Game already finished");
+            case RECORDED -> {
+                metrics.firstMove(gameSession);
+                broadcastGameUpdate(gameRooms.get(gameSession.getGameId()), gameSession, false);
+            }
+            case RESOLVED -> {
+                resolveGame(gameSession.getGameId(), gameSession);
+                metrics.resolved(gameSession);
+            }
         }
+    }
 
-        boolean bothMoved = gameSession.getPlayer1Move() != null && gameSession.getPlayer2Move() != null;
-        if (bothMoved) {
-            String winner = determineWinner(gameSession.getPlayer1Move(), gameSession.getPlayer2Move());
-            gameSession.setResult("draw".equals(winner) ? "draw" : winner.equals("player1") ? gameSession.getPlayer1Id() : gameSession.getPlayer2Id());
-
-            User player1Stats = userService.getUserStats(gameSession.getPlayer1Id());
-            User player2Stats = userService.getUserStats(gameSession.getPlayer2Id());
+    // only ever called by the thread whose move completed the game
+    private void resolveGame(String gameId, GameSession gameSession) {
+        byte outcome = gameSession.getState().outcome();
+        double player1Score;
+        if (outcome == Move.FIRST_WINS) {
+            gameSession.setResult(gameSession.getPlayer1Id());
+            player1Score = 1.0;
+        } else if (outcome == Move.SECOND_WINS) {
+            gameSession.setResult(gameSession.getPlayer2Id());
+            player1Score = 0.0;
+        } else {
+            gameSession.setResult("draw");
+            player1Score = 0.5;
+        }
 
-            int[] newRatings = eloService.calculateNewRatings(player1Stats.getElo(), player2Stats.getElo(), gameSession.getResult().equals(gameSession.getPlayer1Id()) ? 1.0 : gameSession.getResult().equals(gameSession.getPlayer2Id()) ? 0.0 : 0.5);
-    
-            int player1EloDelta = newRatings[0] - player1Stats.getElo();
-            int player2EloDelta = newRatings[1] - player2Stats.getElo();
+        int player1Rating = gameSession.getPlayer1Rating();
+        int player2Rating = gameSession.getPlayer2Rating();
+        int[] newRatings = eloService.calculateNewRatings(player1Rating, player2Rating, player1Score);
+
+        gameSession.setPlayer1EloDelta(newRatings[0] - player1Rating);
+        gameSession.setPlayer2EloDelta(newRatings[1] - player2Rating);
+
+        // the result goes out only once the game is synced to the outbox, so a crash can't
+        // take back an Elo change the players were already shown
+        Set<WebSocketSession> room = gameRooms.get(gameId);
+        cleanupGame(gameId, gameSession).whenCompleteAsync((ignored, error) -> {
+            try {
+                broadcastGameUpdate(room, gameSession, true);
+            } catch (Exception e) {
+                logger.error("Error sending result of game {}", gameId, e);
+            }
+        }, gameHandlerExecutor);
+    }
 
-            gameSession.setPlayer1EloDelta(player1EloDelta);
-            gameSession.setPlayer2EloDelta(player2EloDelta);
+    // move deadline passed: a player who has not moved forfeits, and the game is
+    // rated and saved like any other
+    private void forfeitGame(GameSession gameSession) {
+        String gameId = gameSession.getGameId();
+        moveDeadlines.remove(gameId);
+        if (!gameSession.forfeit()) return;
 
-            broadcastGameUpdate(gameId, gameSession, true);
-            cleanupGame(gameId, gameSession);
-        } else {
-            broadcastGameUpdate(gameId, gameSession, false);
+        logger.info("Game {} timed out waiting for moves", gameId);
+        metrics.forfeited();
+        try {
+            resolveGame(gameId, gameSession);
+        } catch (Exception e) {
+            logger.error("Error resolving timed out game {}", gameId, e);
         }
     }
 
-    private void cleanupGame(String gameId, GameSession gameSession) {
+    private void cancelMoveDeadline(String gameId) {
+        Timeout deadline = moveDeadlines.remove(gameId);
+        if (deadline != null) deadline.cancel();
+    }
+
+    private CompletableFuture<Void> cleanupGame(String gameId, GameSession gameSession) {
+        cancelMoveDeadline(gameId);
         gameMap.remove(gameId);
+        gameHandles.remove(gameSession.getHandle());
         gameRooms.remove(gameId);
 
         userGameMap.remove(gameSession.getPlayer1Id());
         userGameMap.remove(gameSession.getPlayer2Id());
+        cancelReconnectGrace(gameSession.getPlayer1Id());
+        cancelReconnectGrace(gameSession.getPlayer2Id());
 
-        try {
-            gameService.finalizeGame(gameSession);
-        } catch (Exception e) {
-            logger.error("Error finalizing game in Supabase", e);
-        }
+        return persistencePipeline.submit(gameSession);
     }
 
     private void sendError(WebSocketSession session, String errorMsg) throws Exception {
-        Map<String, Object> errorPayload = Map.of(
-            "type", "ERROR",
-            "message", errorMsg
-        );
-        if (session.isOpen()) {
-            session.sendMessage(new TextMessage(mapper.writeValueAsString(errorPayload)));
-        }
+        outbound.send(session, encoders.forSession(session).error(errorMsg), DeliveryPolicy.DROPPABLE);
     }
 
-    private void broadcastLobbyUpdate() throws Exception {
-        Map<String, Object> lobbyPayload = Map.of(
-            "type", "LOBBY_UPDATE",
-            "playersWaiting", matchmakingQueue.size()
-        );
-
-        String msg = mapper.writeValueAsString(lobbyPayload);
-        for (WebSocketSession session : lobbyPlayers.values()) {
-            if (session.isOpen()) {
-                session.sendMessage(new TextMessage(msg));
-            }
-        }
+    private void broadcastLobbyUpdate() {
+        lobbyUpdates.markDirty();
     }
 
-    private String determineWinner(String move1, String move2) {
-        if (move1.equals(move2)) return "draw";
-
-        return switch (move1) {
-            case "rock" -> move2.equals("scissors") ? "player1" : "player2";
-            case "paper" -> move2.equals("rock") ? "player1" : "player2";
-            case "scissors" -> move2.equals("paper") ? "player1" : "player2";
-            default -> "draw"; // fallback
-        };
+    @Scheduled(fixedDelayString = "${lobby.update-interval-ms:250}")
+    public void flushLobbyUpdate() {
+        lobbyUpdates.flush(matchmaker.size(), lobbyPlayers.values());
     }
 
-    private void broadcastGameUpdate(String gameId, GameSession gameSession, boolean isFinal) throws Exception {
-        Set<WebSocketSession> sessions = gameRooms.get(gameId);
+    private void broadcastGameUpdate(Set<WebSocketSession> sessions, GameSession gameSession, boolean isFinal) throws Exception {
         if (sessions == null || sessions.isEmpty()) return;
 
-        Map<String, Object> gameData = new HashMap<>();
-        gameData.put("player1Id", gameSession.getPlayer1Id());
-        gameData.put("player2Id", gameSession.getPlayer2Id());
-        if (gameSession.getPlayer1Move() != null) gameData.put("player1Move", gameSession.getPlayer1Move());
-        if (gameSession.getPlayer2Move() != null) gameData.put("player2Move", gameSession.getPlayer2Move());
-        if (gameSession.getResult() != null) gameData.put("result", gameSession.getResult());
-        if (isFinal) {
-            gameData.put("player1EloDelta", gameSession.getPlayer1EloDelta());
-            gameData.put("player2EloDelta", gameSession.getPlayer2EloDelta());
-        }
-
-        Map<String, Object> payload = Map.of(
-            "type", "GAME_UPDATE",
-            "data", gameData,
-            "isFinal", isFinal
-        );
-
-        String msg = mapper.writeValueAsString(payload);
+        // encoded at most once per protocol in use by the room
+        WebSocketMessage<?>[] frames = new WebSocketMessage<?>[WireProtocol.values().length];
         for (WebSocketSession s : sessions) {
-            if (s.isOpen()) {
-                s.sendMessage(new TextMessage(msg));
+            WireProtocol protocol = WireProtocol.of(s);
+            WebSocketMessage<?> frame = frames[protocol.ordinal()];
+            if (frame == null) {
+                frame = encoders.forProtocol(protocol).gameUpdate(gameSession, isFinal);
+                frames[protocol.ordinal()] = frame;
             }
+            outbound.send(s, frame, DeliveryPolicy.REQUIRED);
         }
     }
 }
@@ -0,0 +1,73 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import org.springframework.web.socket.WebSocketSession;
+
+// Token buckets for one connection's inbound frames: every frame, lobby joins and
+// leaves, and moves each have their own, plus one that counts rejections so a client
+// that keeps flooding can be cut off. Each bucket is kept in GCRA form, a single
+// timestamp of when it would be full again, so the state is four longs on this object.
+// A connection's frames are delivered one at a time, so the fields are not shared.
+public class InboundLimiter {
+
+    private static final String SESSION_ATTRIBUTE = "inboundLimiter";
+    private static final long REJECTED = Long.MIN_VALUE;
+
+    private final InboundLimits limits;
+    private long frameTat;
+    private long lobbyTat;
+    private long moveTat;
+    private long rejectionTat;
+
+    InboundLimiter(InboundLimits limits, long now) {
+        this.limits = limits;
+        this.frameTat = now;
+        this.lobbyTat = now;
+        this.moveTat = now;
+        this.rejectionTat = now;
+    }
+
+    static void bind(WebSocketSession session, InboundLimiter limiter) {
+        session.getAttributes().put(SESSION_ATTRIBUTE, limiter);
+    }
+
+    static InboundLimiter of(WebSocketSession session) {
+        Object limiter = session.getAttributes().get(SESSION_ATTRIBUTE);
+        return limiter instanceof InboundLimiter inbound ? inbound : null;
+    }
+
+    boolean tryFrame(long now) {
+        long next = admit(frameTat, now, limits.frameIntervalNanos, limits.frameToleranceNanos);
+        if (next == REJECTED) return false;
+        frameTat = next;
+        return true;
+    }
+
+    boolean tryLobby(long now) {
+        long next = admit(lobbyTat, now, limits.lobbyIntervalNanos, limits.lobbyToleranceNanos);
+        if (next == REJECTED) return false;
+        lobbyTat = next;
+        return true;
+    }
+
+    boolean tryMove(long now) {
+        long next = admit(moveTat, now, limits.moveIntervalNanos, limits.moveToleranceNanos);
+        if (next == REJECTED) return false;
+        moveTat = next;
+        return true;
+    }
+
+    // false once the client has had more frames rejected than the rejection window allows
+    boolean recordRejection(long now) {
+        long next = admit(rejectionTat, now, limits.rejectionIntervalNanos, limits.rejectionToleranceNanos);
+        if (next == REJECTED) return false;
+        rejectionTat = next;
+        return true;
+    }
+
+    // a frame fits if taking its token leaves the bucket at most `tolerance` (burst x
+    // interval) ahead of now
+    private static long admit(long tat, long now, long interval, long tolerance) {
+        long next = (tat - now > 0 ? tat : now) + interval;
+        return next - now > tolerance ? REJECTED : next;
+    }
+}
@@ -0,0 +1,118 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Flood protection for /ws/game. Every connection gets an InboundLimiter; frames over
+// its rates are dropped before they are decoded or acted on, and a connection that
+// keeps getting frames rejected is closed. Oversized frames never reach the handler:
+// the container closes the connection with 1009 once a frame passes max-frame-bytes.
+@Component
+public class InboundLimits {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboundLimits.class);
+
+    public enum Check { FRAME, LOBBY, MOVE }
+
+    // read by InboundLimiter
+    final long frameIntervalNanos;
+    final long frameToleranceNanos;
+    final long lobbyIntervalNanos;
+    final long lobbyToleranceNanos;
+    final long moveIntervalNanos;
+    final long moveToleranceNanos;
+    final long rejectionIntervalNanos;
+    final long rejectionToleranceNanos;
+
+    private final int maxFrameBytes;
+    private final OutboundSessions outbound;
+    private final Counter[] rejected = new Counter[Check.values().length];
+    private final Counter oversized;
+    private final Counter closedForFlooding;
+
+    public InboundLimits(OutboundSessions outbound,
+                         MeterRegistry meterRegistry,
+                         @Value("${ws.inbound.max-frame-bytes:4096}") int maxFrameBytes,
+                         @Value("${ws.inbound.frames-per-second:20}") double framesPerSecond,
+                         @Value("${ws.inbound.frame-burst:40}") int frameBurst,
+                         @Value("${ws.inbound.lobby-per-second:1}") double lobbyPerSecond,
+                         @Value("${ws.inbound.lobby-burst:5}") int lobbyBurst,
+                         @Value("${ws.inbound.moves-per-second:2}") double movesPerSecond,
+                         @Value("${ws.inbound.move-burst:4}") int moveBurst,
+                         @Value("${ws.inbound.max-rejections:20}") int maxRejections,
+                         @Value("${ws.inbound.rejection-window-ms:10000}") long rejectionWindowMs) {
+        this.outbound = outbound;
+        this.maxFrameBytes = maxFrameBytes;
+
+        this.frameIntervalNanos = intervalNanos(framesPerSecond);
+        this.frameToleranceNanos = frameIntervalNanos * frameBurst;
+        this.lobbyIntervalNanos = intervalNanos(lobbyPerSecond);
+        this.lobbyToleranceNanos = lobbyIntervalNanos * lobbyBurst;
+        this.moveIntervalNanos = intervalNanos(movesPerSecond);
+        this.moveToleranceNanos = moveIntervalNanos * moveBurst;
+        this.rejectionToleranceNanos = TimeUnit.MILLISECONDS.toNanos(rejectionWindowMs);
+        this.rejectionIntervalNanos = rejectionToleranceNanos / Math.max(1, maxRejections);
+
+        for (Check check : Check.values()) {
+            rejected[check.ordinal()] = Counter.builder("ratedrps.ws.inbound.rejected")
+                .description("Inbound frames dropped by the per-connection rate limits")
+                .tag("limit", check.name().toLowerCase())
+                .register(meterRegistry);
+        }
+        this.oversized = Counter.builder("ratedrps.ws.inbound.rejected")
+            .description("Inbound frames dropped by the per-connection rate limits")
+            .tag("limit", "size")
+            .register(meterRegistry);
+        this.closedForFlooding = Counter.builder("ratedrps.ws.inbound.flood-closed")
+            .description("Connections closed for repeatedly exceeding the inbound rate limits")
+            .register(meterRegistry);
+    }
+
+    public void bind(WebSocketSession session) {
+        session.setTextMessageSizeLimit(maxFrameBytes);
+        session.setBinaryMessageSizeLimit(maxFrameBytes);
+        InboundLimiter.bind(session, new InboundLimiter(this, System.nanoTime()));
+    }
+
+    // false if the frame should be dropped
+    public boolean allow(WebSocketSession session, Check check) {
+        InboundLimiter limiter = InboundLimiter.of(session);
+        if (limiter == null) return true;
+
+        long now = System.nanoTime();
+        boolean allowed = switch (check) {
+            case FRAME -> limiter.tryFrame(now);
+            case LOBBY -> limiter.tryLobby(now);
+            case MOVE -> limiter.tryMove(now);
+        };
+        if (allowed) return true;
+
+        rejected[check.ordinal()].increment();
+        if (!limiter.recordRejection(now)) {
+            closedForFlooding.increment();
+            logger.warn("Closing {}: too many rate-limited frames", session.getId());
+            outbound.close(session, CloseStatus.POLICY_VIOLATION.withReason("Rate limit exceeded"));
+        }
+        return false;
+    }
+
+    // the container closes with 1009 when a frame is over the size limit
+    public void onClosed(CloseStatus status) {
+        if (status.getCode() == CloseStatus.TOO_BIG_TO_PROCESS.getCode()) {
+            oversized.increment();
+        }
+    }
+
+    private static long intervalNanos(double perSecond) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+    }
+}
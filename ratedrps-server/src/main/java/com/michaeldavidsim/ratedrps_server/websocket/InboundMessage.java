@@ -0,0 +1,17 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import com.michaeldavidsim.ratedrps_server.model.Move;
+
+// Client-to-server messages of the JSON protocol. Fields are null when the frame
+// did not carry them as strings; the handler validates what it needs.
+public sealed interface InboundMessage {
+
+    record JoinLobby(String userId, String username) implements InboundMessage {}
+
+    record LeaveLobby(String userId) implements InboundMessage {}
+
+    // move is null when missing or not a known move name
+    record MakeMove(String userId, String gameId, Move move) implements InboundMessage {}
+
+    record Unknown(String type) implements InboundMessage {}
+}
@@ -0,0 +1,145 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+
+// The original JSON frames, unchanged on the wire. Frames whose payload repeats
+// (LOBBY_UPDATE for a given count, the fixed ERROR strings) are encoded once and the
+// same TextMessage is handed out from then on; TextMessage is immutable, so one
+// instance can go to any number of sessions. MATCH_FOUND and GAME_UPDATE go through
+// typed ObjectWriters, with Jackson's buffers drawn from a shared pool rather than a
+// per-thread one so virtual threads reuse them too.
+@Component
+public class JsonFrameEncoder implements FrameEncoder {
+
+    // lobby counts below this are cached; above it they are encoded per flush
+    private static final int CACHED_LOBBY_COUNTS = 1024;
+    // the handler's constant error texts; anything else (e.g. one that echoes client
+    // input) is encoded per call so clients can't grow the cache
+    private static final List<String> FIXED_ERRORS = List.of(
+        "Empty frame",
+        "Truncated frame",
+        "Rate limit exceeded",
+        "Missing or invalid userId or username",
+        "userId does not match token",
+        "Lobby timed out, join again to keep searching",
+        "Invalid MAKE_MOVE payload",
+        "Game not found",
+        "User not part of this game",
+        "Move already made",
+        "Game already finished");
+
+    private final ObjectWriter lobbyUpdateWriter;
+    private final ObjectWriter matchFoundWriter;
+    private final ObjectWriter gameUpdateWriter;
+    private final ObjectWriter errorWriter;
+
+    private final AtomicReferenceArray<TextMessage> lobbyFrames = new AtomicReferenceArray<>(CACHED_LOBBY_COUNTS);
+    private final Map<String, TextMessage> errorFrames;
+
+    public JsonFrameEncoder() {
+        JsonFactory factory = JsonFactory.builder()
+            .recyclerPool(JsonRecyclerPools.newConcurrentDequePool())
+            .build();
+        ObjectMapper mapper = new ObjectMapper(factory);
+        this.lobbyUpdateWriter = mapper.writerFor(LobbyUpdateFrame.class);
+        this.matchFoundWriter = mapper.writerFor(MatchFoundFrame.class);
+        this.gameUpdateWriter = mapper.writerFor(GameUpdateFrame.class);
+        this.errorWriter = mapper.writerFor(ErrorFrame.class);
+
+        Map<String, TextMessage> errors = new HashMap<>();
+        try {
+            for (String message : FIXED_ERRORS) {
+                errors.put(message, new TextMessage(errorWriter.writeValueAsString(new ErrorFrame(message))));
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to encode error frames", e);
+        }
+        this.errorFrames = Map.copyOf(errors);
+    }
+
+    @Override
+    public TextMessage lobbyUpdate(int playersWaiting) throws JsonProcessingException {
+        if (playersWaiting < 0 || playersWaiting >= CACHED_LOBBY_COUNTS) {
+            return new TextMessage(lobbyUpdateWriter.writeValueAsString(new LobbyUpdateFrame(playersWaiting)));
+        }
+        TextMessage frame = lobbyFrames.get(playersWaiting);
+        if (frame == null) {
+            frame = new TextMessage(lobbyUpdateWriter.writeValueAsString(new LobbyUpdateFrame(playersWaiting)));
+            lobbyFrames.set(playersWaiting, frame);
+        }
+        return frame;
+    }
+
+    @Override
+    public TextMessage matchFound(GameSession game, boolean forPlayer1) throws JsonProcessingException {
+        GamePlayer opponent = forPlayer1 ? game.getPlayer2() : game.getPlayer1();
+        MatchFoundFrame frame = new MatchFoundFrame(
+            new MatchFoundData(game.getGameId(), opponent.getUserId(), opponent.getUsername()));
+        return new TextMessage(matchFoundWriter.writeValueAsString(frame));
+    }
+
+    @Override
+    public TextMessage gameUpdate(GameSession gameSession, boolean isFinal) throws JsonProcessingException {
+        GameUpdateData data = new GameUpdateData(
+            gameSession.getPlayer1Id(),
+            gameSession.getPlayer2Id(),
+            gameSession.getPlayer1Move(),
+            gameSession.getPlayer2Move(),
+            gameSession.getResult(),
+            isFinal ? gameSession.getPlayer1EloDelta() : null,
+            isFinal ? gameSession.getPlayer2EloDelta() : null
+        );
+        return new TextMessage(gameUpdateWriter.writeValueAsString(new GameUpdateFrame(data, isFinal)));
+    }
+
+    @Override
+    public TextMessage error(String message) throws JsonProcessingException {
+        TextMessage frame = errorFrames.get(message);
+        if (frame != null) return frame;
+        return new TextMessage(errorWriter.writeValueAsString(new ErrorFrame(message)));
+    }
+
+    record LobbyUpdateFrame(int playersWaiting) {
+        @JsonProperty(index = 0)
+        public String type() { return "LOBBY_UPDATE"; }
+    }
+
+    record MatchFoundFrame(MatchFoundData data) {
+        @JsonProperty(index = 0)
+        public String type() { return "MATCH_FOUND"; }
+    }
+
+    record MatchFoundData(String gameId, String opponentId, String opponentUsername) {}
+
+    record GameUpdateFrame(GameUpdateData data, @JsonProperty("isFinal") boolean isFinal) {
+        @JsonProperty(index = 0)
+        public String type() { return "GAME_UPDATE"; }
+    }
+
+    // moves and result are left out until set, Elo deltas until the final update
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record GameUpdateData(String player1Id, String player2Id, String player1Move, String player2Move,
+                          String result, Integer player1EloDelta, Integer player2EloDelta) {}
+
+    record ErrorFrame(String message) {
+        @JsonProperty(index = 0)
+        public String type() { return "ERROR"; }
+    }
+}
@@ -0,0 +1,62 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.JoinLobby;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.LeaveLobby;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.MakeMove;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.Unknown;
+
+// Decodes JSON frames straight off the token stream into InboundMessage records.
+// The handful of known fields land in locals; anything else, including nested
+// values, is skipped without being materialized.
+@Component
+public class JsonInboundDecoder {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    public InboundMessage decode(String payload) throws IOException {
+        String type = null;
+        String userId = null;
+        String username = null;
+        String gameId = null;
+        String move = null;
+
+        try (JsonParser parser = factory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                if (value != JsonToken.VALUE_STRING) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (field) {
+                    case "type" -> type = parser.getText();
+                    case "userId" -> userId = parser.getText();
+                    case "username" -> username = parser.getText();
+                    case "gameId" -> gameId = parser.getText();
+                    case "move" -> move = parser.getText();
+                    default -> { }
+                }
+            }
+        }
+
+        if (type == null) return new Unknown(null);
+        return switch (type) {
+            case "JOIN_LOBBY" -> new JoinLobby(userId, username);
+            case "LEAVE_LOBBY" -> new LeaveLobby(userId);
+            case "MAKE_MOVE" -> new MakeMove(userId, gameId, Move.fromWireName(move));
+            default -> new Unknown(type);
+        };
+    }
+}
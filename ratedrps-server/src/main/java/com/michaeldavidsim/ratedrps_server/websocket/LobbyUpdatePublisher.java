@@ -0,0 +1,83 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+// Coalesces lobby changes: callers only mark the lobby dirty, and at most one
+// LOBBY_UPDATE frame goes out per flush. Sessions that already saw the current
+// count are skipped, so an unchanged count costs no sends at all.
+@Component
+public class LobbyUpdatePublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LobbyUpdatePublisher.class);
+    private static final String LAST_SEEN_COUNT = "lobbyLastSeenCount";
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final OutboundSessions outbound;
+    private final FrameEncoders encoders;
+
+    // one frame per wire protocol for cachedCount, encoded on first use
+    private int cachedCount = -1;
+    private final WebSocketMessage<?>[] cachedFrames = new WebSocketMessage<?>[WireProtocol.values().length];
+
+    public LobbyUpdatePublisher(OutboundSessions outbound, FrameEncoders encoders) {
+        this.outbound = outbound;
+        this.encoders = encoders;
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    // a player joining or leaving starts over, so their next flush sends the current
+    // count even if it happens to match the one they were last sent
+    public void forget(WebSocketSession session) {
+        session.getAttributes().remove(LAST_SEEN_COUNT);
+    }
+
+    // called from the scheduler thread only; frames go out through each session's
+    // outbound queue, never from this thread
+    public void flush(int playersWaiting, Iterable<WebSocketSession> lobbySessions) {
+        if (!dirty.getAndSet(false)) return;
+
+        if (playersWaiting != cachedCount) {
+            Arrays.fill(cachedFrames, null);
+            cachedCount = playersWaiting;
+        }
+
+        for (WebSocketSession session : lobbySessions) {
+            Map<String, Object> attributes = session.getAttributes();
+            if (!session.isOpen() || Integer.valueOf(playersWaiting).equals(attributes.get(LAST_SEEN_COUNT))) {
+                continue;
+            }
+            WebSocketMessage<?> frame;
+            try {
+                frame = frameFor(WireProtocol.of(session), playersWaiting);
+            } catch (IOException e) {
+                logger.error("Failed to serialize lobby update", e);
+                return;
+            }
+            // a queued, not yet sent update for an older count is replaced by this one
+            if (outbound.send(session, frame, DeliveryPolicy.LATEST_ONLY)) {
+                attributes.put(LAST_SEEN_COUNT, playersWaiting);
+            }
+        }
+    }
+
+    private WebSocketMessage<?> frameFor(WireProtocol protocol, int playersWaiting) throws IOException {
+        WebSocketMessage<?> frame = cachedFrames[protocol.ordinal()];
+        if (frame == null) {
+            frame = encoders.forProtocol(protocol).lobbyUpdate(playersWaiting);
+            cachedFrames[protocol.ordinal()] = frame;
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,219 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+// Bounded outbound queue for one connection. Any thread may enqueue; whichever
+// enqueuer flips `draining` schedules the single writer on the executor, so frames
+// go out one at a time and in order, and the enqueuing thread never blocks on the
+// socket. LATEST_ONLY frames coalesce into one slot that is sent once the queue is
+// empty, or moved into the queue when another frame is enqueued behind it, so frames
+// still leave in the order they were sent. A client that overflows the buffer with
+// REQUIRED frames, or that has a send stuck past the time limit, is disconnected.
+public class OutboundSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundSession.class);
+
+    private final WebSocketSession session;
+    private final Executor writer;
+    private final int capacity;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+    private final Listener listener;
+
+    private final Queue<WebSocketMessage<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicReference<WebSocketMessage<?>> latest = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // 0 when no send is in progress
+    private volatile long sendStartedNanos;
+    // last pong or inbound frame from the client
+    private volatile long lastSeenNanos = System.nanoTime();
+
+    public interface Listener {
+        void onDropped(WebSocketSession session);
+        void onSlowConsumer(WebSocketSession session, String reason);
+    }
+
+    public OutboundSession(WebSocketSession session, Executor writer, int capacity,
+                           int bufferSizeLimit, long sendTimeLimitNanos, Listener listener) {
+        this.session = session;
+        this.writer = writer;
+        this.capacity = capacity;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = sendTimeLimitNanos;
+        this.listener = listener;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    public boolean send(WebSocketMessage<?> message, DeliveryPolicy policy) {
+        if (closed.get() || !session.isOpen()) return false;
+        if (isSendTimeExceeded(System.nanoTime())) {
+            disconnect("send time limit exceeded");
+            return false;
+        }
+
+        if (policy == DeliveryPolicy.LATEST_ONLY) {
+            latest.set(message);
+        } else if (!reserve(message.getPayloadLength())) {
+            if (policy == DeliveryPolicy.DROPPABLE) {
+                listener.onDropped(session);
+            } else {
+                disconnect("outbound buffer full");
+            }
+            return false;
+        } else {
+            // a coalesced frame set before this one goes out ahead of it, not after
+            WebSocketMessage<?> pending = latest.getAndSet(null);
+            if (pending != null) {
+                if (reserve(pending.getPayloadLength())) {
+                    queue.add(pending);
+                } else {
+                    listener.onDropped(session);
+                }
+            }
+            queue.add(message);
+        }
+
+        scheduleDrain();
+        return true;
+    }
+
+    public void touch(long now) {
+        lastSeenNanos = now;
+    }
+
+    public long getLastSeenNanos() {
+        return lastSeenNanos;
+    }
+
+    public boolean isSendTimeExceeded(long now) {
+        long started = sendStartedNanos;
+        return started != 0 && now - started > sendTimeLimitNanos;
+    }
+
+    public void close() {
+        closed.set(true);
+        queue.clear();
+        latest.set(null);
+    }
+
+    void disconnect(String reason) {
+        if (!shutDown()) return;
+        listener.onSlowConsumer(session, reason);
+        closeSession(CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+    }
+
+    // closed for something the client did (or stopped doing) rather than for being slow
+    void terminate(CloseStatus status) {
+        if (!shutDown()) return;
+        closeSession(status);
+    }
+
+    private boolean shutDown() {
+        if (!closed.compareAndSet(false, true)) return false;
+        queue.clear();
+        latest.set(null);
+        return true;
+    }
+
+    private void closeSession(CloseStatus status) {
+        // closing may wait on a stuck send or a dead peer, so keep it off the caller's thread
+        writer.execute(() -> {
+            try {
+                session.close(status);
+            } catch (Exception e) {
+                logger.debug("Failed to close session {}", session.getId(), e);
+            }
+        });
+    }
+
+    private boolean reserve(int size) {
+        if (queuedCount.incrementAndGet() > capacity) {
+            queuedCount.decrementAndGet();
+            return false;
+        }
+        if (queuedBytes.addAndGet(size) > bufferSizeLimit) {
+            queuedBytes.addAndGet(-size);
+            queuedCount.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            writer.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            WebSocketMessage<?> next;
+            while (!closed.get() && (next = poll()) != null) {
+                if (!deliver(next)) return;
+            }
+        } finally {
+            draining.set(false);
+        }
+        // a frame may have been enqueued after the last poll but before draining was cleared
+        if (!closed.get() && (!queue.isEmpty() || latest.get() != null)) {
+            scheduleDrain();
+        }
+    }
+
+    private WebSocketMessage<?> poll() {
+        WebSocketMessage<?> next = queue.poll();
+        if (next != null) {
+            queuedCount.decrementAndGet();
+            queuedBytes.addAndGet(-next.getPayloadLength());
+            return next;
+        }
+        return latest.getAndSet(null);
+    }
+
+    private boolean deliver(WebSocketMessage<?> message) {
+        if (!session.isOpen()) {
+            close();
+            return false;
+        }
+        // encoded frames are shared between sessions, and sending a binary frame moves
+        // its buffer's position, so each send gets its own view of the bytes
+        WebSocketMessage<?> frame = message instanceof BinaryMessage binary
+            ? new BinaryMessage(binary.getPayload().duplicate(), binary.isLast())
+            : message;
+        sendStartedNanos = System.nanoTime();
+        try {
+            session.sendMessage(frame);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to send to {}, closing", session.getId(), e);
+            disconnect("send failed");
+            return false;
+        } finally {
+            sendStartedNanos = 0;
+        }
+    }
+}
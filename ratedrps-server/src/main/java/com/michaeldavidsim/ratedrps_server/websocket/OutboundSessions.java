@@ -0,0 +1,179 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Owns the outbound queue of every open connection. All sends in the handler go
+// through here instead of WebSocketSession.sendMessage, which is not safe to call
+// from several threads at once.
+//
+// Also runs the heartbeat. Connections are split into ws.heartbeat.batches fixed
+// batches by session id, and each scheduler tick pings one batch and expires the
+// connections in it that have not sent a pong or a frame within the timeout. Every
+// connection is visited once per interval, and a tick costs interval/batches worth
+// of work however many connections are open.
+@Component
+public class OutboundSessions implements OutboundSession.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundSessions.class);
+
+    private static final PingMessage PING = new PingMessage();
+
+    private final Map<String, OutboundSession> sessions = new ConcurrentHashMap<>();
+    private final List<Set<OutboundSession>> heartbeatBatches;
+    private final long heartbeatTimeoutNanos;
+    private volatile Consumer<WebSocketSession> staleListener = session -> { };
+    // scheduler thread only
+    private int nextHeartbeatBatch;
+    private final ExecutorService writer;
+    private final int capacity;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+
+    private final Counter dropped;
+    private final Counter slowConsumers;
+    private final Counter heartbeatTimeouts;
+
+    public OutboundSessions(ExecutorService outboundWriterExecutor,
+                            MeterRegistry meterRegistry,
+                            @Value("${ws.outbound.queue-capacity:64}") int capacity,
+                            @Value("${ws.outbound.buffer-size-limit:65536}") int bufferSizeLimit,
+                            @Value("${ws.outbound.send-time-limit-ms:5000}") long sendTimeLimitMs,
+                            @Value("${ws.heartbeat.timeout-ms:30000}") long heartbeatTimeoutMs,
+                            @Value("${ws.heartbeat.batches:10}") int heartbeatBatches) {
+        this.writer = outboundWriterExecutor;
+        this.capacity = capacity;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.heartbeatTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatTimeoutMs);
+        this.heartbeatBatches = new ArrayList<>(heartbeatBatches);
+        for (int i = 0; i < heartbeatBatches; i++) {
+            this.heartbeatBatches.add(ConcurrentHashMap.newKeySet());
+        }
+
+        this.dropped = Counter.builder("ratedrps.ws.outbound.dropped")
+            .description("Droppable frames discarded because a client's outbound buffer was full")
+            .register(meterRegistry);
+        this.slowConsumers = Counter.builder("ratedrps.ws.outbound.slow-consumers")
+            .description("Connections closed for not keeping up with outbound frames")
+            .register(meterRegistry);
+        this.heartbeatTimeouts = Counter.builder("ratedrps.ws.heartbeat.timeouts")
+            .description("Connections closed for not answering pings")
+            .register(meterRegistry);
+    }
+
+    // told about a connection the heartbeat is about to close, before the close goes through
+    public void setStaleListener(Consumer<WebSocketSession> staleListener) {
+        this.staleListener = staleListener;
+    }
+
+    public void register(WebSocketSession session) {
+        OutboundSession outbound = new OutboundSession(
+            session, writer, capacity, bufferSizeLimit, sendTimeLimitNanos, this);
+        sessions.put(session.getId(), outbound);
+        heartbeatBatchOf(session).add(outbound);
+    }
+
+    public void unregister(WebSocketSession session) {
+        OutboundSession outbound = sessions.remove(session.getId());
+        if (outbound != null) {
+            heartbeatBatchOf(session).remove(outbound);
+            outbound.close();
+        }
+    }
+
+    // drops anything still queued and closes the connection off the caller's thread
+    public void close(WebSocketSession session, CloseStatus status) {
+        OutboundSession outbound = sessions.get(session.getId());
+        if (outbound != null) outbound.terminate(status);
+    }
+
+    // any frame from the client, pongs included, shows it is still there
+    public void touch(WebSocketSession session) {
+        OutboundSession outbound = sessions.get(session.getId());
+        if (outbound != null) outbound.touch(System.nanoTime());
+    }
+
+    public boolean isLive(WebSocketSession session, long now) {
+        OutboundSession outbound = sessions.get(session.getId());
+        return outbound != null && session.isOpen() && now - outbound.getLastSeenNanos() <= heartbeatTimeoutNanos;
+    }
+
+    public boolean send(WebSocketSession session, WebSocketMessage<?> message, DeliveryPolicy policy) {
+        OutboundSession outbound = sessions.get(session.getId());
+        if (outbound == null) return false;
+        return outbound.send(message, policy);
+    }
+
+    // a stuck send is otherwise only noticed when the next frame is queued
+    @Scheduled(fixedDelayString = "${ws.outbound.send-time-limit-ms:5000}")
+    public void disconnectStuckSessions() {
+        long now = System.nanoTime();
+        for (OutboundSession outbound : sessions.values()) {
+            if (outbound.isSendTimeExceeded(now)) {
+                outbound.disconnect("send time limit exceeded");
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "#{${ws.heartbeat.interval-ms:10000} / ${ws.heartbeat.batches:10}}")
+    public void heartbeat() {
+        Set<OutboundSession> batch = heartbeatBatches.get(nextHeartbeatBatch);
+        nextHeartbeatBatch = (nextHeartbeatBatch + 1) % heartbeatBatches.size();
+
+        long now = System.nanoTime();
+        for (OutboundSession outbound : batch) {
+            if (now - outbound.getLastSeenNanos() > heartbeatTimeoutNanos) {
+                expire(outbound);
+            } else {
+                outbound.send(PING, DeliveryPolicy.DROPPABLE);
+            }
+        }
+    }
+
+    private void expire(OutboundSession outbound) {
+        WebSocketSession session = outbound.getSession();
+        heartbeatTimeouts.increment();
+        logger.info("Closing {}: no response to pings", session.getId());
+        try {
+            staleListener.accept(session);
+        } catch (Exception e) {
+            logger.error("Failed to clean up stale session {}", session.getId(), e);
+        }
+        outbound.terminate(CloseStatus.SESSION_NOT_RELIABLE.withReason("heartbeat timeout"));
+    }
+
+    private Set<OutboundSession> heartbeatBatchOf(WebSocketSession session) {
+        return heartbeatBatches.get(Math.floorMod(session.getId().hashCode(), heartbeatBatches.size()));
+    }
+
+    @Override
+    public void onDropped(WebSocketSession session) {
+        dropped.increment();
+    }
+
+    @Override
+    public void onSlowConsumer(WebSocketSession session, String reason) {
+        slowConsumers.increment();
+        logger.warn("Disconnecting {}: {}", session.getId(), reason);
+    }
+}
@@ -0,0 +1,35 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import org.springframework.web.socket.WebSocketSession;
+
+// Encodings a client can negotiate through Sec-WebSocket-Protocol. Clients that ask
+// for nothing (everything written before the binary protocol existed) get JSON.
+public enum WireProtocol {
+    JSON("rps.json.v1"),
+    BINARY("rps.binary.v1");
+
+    private static final String SESSION_ATTRIBUTE = "wireProtocol";
+
+    private final String subprotocol;
+
+    WireProtocol(String subprotocol) {
+        this.subprotocol = subprotocol;
+    }
+
+    public String getSubprotocol() {
+        return subprotocol;
+    }
+
+    public static WireProtocol fromSubprotocol(String accepted) {
+        return BINARY.subprotocol.equals(accepted) ? BINARY : JSON;
+    }
+
+    public static void bind(WebSocketSession session) {
+        session.getAttributes().put(SESSION_ATTRIBUTE, fromSubprotocol(session.getAcceptedProtocol()));
+    }
+
+    public static WireProtocol of(WebSocketSession session) {
+        Object protocol = session.getAttributes().get(SESSION_ATTRIBUTE);
+        return protocol instanceof WireProtocol wire ? wire : JSON;
+    }
+}
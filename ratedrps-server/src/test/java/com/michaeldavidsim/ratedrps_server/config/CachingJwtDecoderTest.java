@@ -0,0 +1,90 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachingJwtDecoderTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final JwtDecoder nimbus = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(SECRET, "HmacSHA256")).build();
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(token -> {
+        verifications.incrementAndGet();
+        return nimbus.decode(token);
+    }, 100, new SimpleMeterRegistry());
+
+    @Test
+    void verifiesEachTokenOnce() throws Exception {
+        String token = sign("user-1", Instant.now().plusSeconds(60), SECRET);
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertSame(first, second);
+        assertEquals("user-1", second.getSubject());
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    void tamperedAndForeignTokensAreStillRejected() throws Exception {
+        String token = sign("user-1", Instant.now().plusSeconds(60), SECRET);
+        decoder.decode(token);
+
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + sign("user-2", Instant.now().plusSeconds(60), SECRET).split("\\.")[1] + "." + parts[2];
+        assertThrows(JwtException.class, () -> decoder.decode(forged));
+
+        String foreign = sign("user-1", Instant.now().plusSeconds(60), "another-secret-another-secret-xx".getBytes(StandardCharsets.UTF_8));
+        assertThrows(JwtException.class, () -> decoder.decode(foreign));
+    }
+
+    @Test
+    void cachedTokensStopBeingServedAtExp() throws Exception {
+        // JWT timestamps are whole seconds
+        Instant exp = Instant.ofEpochSecond(Instant.now().getEpochSecond() + 2);
+        String token = sign("user-1", exp, SECRET);
+        decoder.decode(token);
+        decoder.decode(token);
+        assertEquals(1, verifications.get());
+
+        // past exp the token goes back to the delegate, which allows it out to its clock skew
+        Thread.sleep(Duration.between(Instant.now(), exp).toMillis() + 100);
+        decoder.decode(token);
+        decoder.decode(token);
+        assertEquals(3, verifications.get());
+    }
+
+    private static String sign(String subject, Instant expiresAt, byte[] secret) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject(subject)
+            .expirationTime(Date.from(expiresAt))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(secret));
+        return jwt.serialize();
+    }
+}
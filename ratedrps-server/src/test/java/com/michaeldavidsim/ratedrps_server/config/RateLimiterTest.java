@@ -0,0 +1,68 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimiterTest {
+
+    @Test
+    void allowsABurstOfPermitsPerKey() {
+        RateLimiter limiter = new RateLimiter("test", 5, 10_000, 1000, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 5; i++) assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+        // other keys have buckets of their own
+        assertTrue(limiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws Exception {
+        RateLimiter limiter = new RateLimiter("test", 100, 60_000, 1000, new SimpleMeterRegistry());
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.execute(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (limiter.tryAcquire("shared")) allowed.incrementAndGet();
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        // a minute-long window refills a fraction of a permit during the test
+        assertTrue(allowed.get() >= 100 && allowed.get() <= 101, "allowed " + allowed.get());
+    }
+
+    @Test
+    void evictsRatherThanRefusingOnceFullAndForgetsRefilledKeys() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimiter limiter = new RateLimiter("test", 1, 50, 4, registry);
+
+        for (int i = 0; i < 4; i++) assertTrue(limiter.tryAcquire("client-" + i));
+        // a newcomer is still served when the limiter is full; something is evicted instead
+        assertTrue(limiter.tryAcquire("client-4"));
+        assertEquals(4, limiter.size());
+        assertEquals(1.0, registry.get("ratedrps.ratelimit.evicted").counter().count());
+
+        // once their buckets have refilled the keys carry no state and are dropped
+        Thread.sleep(100);
+        assertEquals(0, limiter.size());
+        assertTrue(limiter.tryAcquire("client-0"));
+    }
+}
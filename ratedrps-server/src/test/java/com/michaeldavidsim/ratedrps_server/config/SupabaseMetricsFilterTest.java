@@ -0,0 +1,62 @@
+package com.michaeldavidsim.ratedrps_server.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class SupabaseMetricsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SupabaseMetricsFilter filter = new SupabaseMetricsFilter(registry);
+
+    private static ClientRequest request(String url) {
+        return ClientRequest.create(HttpMethod.GET, URI.create(url)).build();
+    }
+
+    @Test
+    void endpointTagDropsIdsAndPaths() {
+        assertEquals("users", SupabaseMetricsFilter.endpointOf(URI.create("http://s/rest/v1/users?id=eq.abc")));
+        assertEquals("rpc/increment_user_stats",
+            SupabaseMetricsFilter.endpointOf(URI.create("http://s/rest/v1/rpc/increment_user_stats")));
+        assertEquals("storage/object",
+            SupabaseMetricsFilter.endpointOf(URI.create("http://s/storage/v1/object/avatars/u/a.png")));
+    }
+
+    @Test
+    void transportFailuresMapToAFixedSetOfReasons() {
+        ClientRequest request = request("http://s/rest/v1/users");
+        WebClientRequestException refused = new WebClientRequestException(
+            new ConnectException("Connection refused"), HttpMethod.GET, request.url(), new HttpHeaders());
+
+        assertEquals("connect", SupabaseMetricsFilter.reasonOf(refused));
+        assertEquals("timeout", SupabaseMetricsFilter.reasonOf(new RuntimeException(new TimeoutException())));
+        assertEquals("io", SupabaseMetricsFilter.reasonOf(new IOException("reset")));
+        assertEquals("other", SupabaseMetricsFilter.reasonOf(new IllegalStateException()));
+    }
+
+    @Test
+    void repeatedCallsShareOneTimerAndCounter() {
+        ClientRequest request = request("http://s/rest/v1/users?id=eq.abc");
+        for (int i = 0; i < 3; i++) {
+            filter.filter(request, r -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build())).block();
+        }
+
+        assertEquals(1, registry.find("ratedrps.supabase.requests").timers().size());
+        assertEquals(3, registry.get("ratedrps.supabase.requests").tag("status", "503").timer().count());
+        assertEquals(3.0, registry.get("ratedrps.supabase.errors").tag("reason", "5xx").counter().count());
+    }
+}
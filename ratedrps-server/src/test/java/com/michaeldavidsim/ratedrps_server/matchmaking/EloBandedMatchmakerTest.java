@@ -0,0 +1,93 @@
+package com.michaeldavidsim.ratedrps_server.matchmaking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+
+class EloBandedMatchmakerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final EloBandedMatchmaker matchmaker = new EloBandedMatchmaker(100, 25, 600);
+
+    private MatchTicket ticket(String userId, int rating, long enqueuedAt) {
+        return new MatchTicket(new GamePlayer(userId, userId), rating, enqueuedAt);
+    }
+
+    @Test
+    void pairsClosestRatingOnArrival() {
+        long now = System.nanoTime();
+        matchmaker.enqueue(ticket("low", 1000, now));
+        matchmaker.enqueue(ticket("high", 1300, now));
+
+        Optional<MatchPair> pair = matchmaker.enqueue(ticket("mid", 1250, now));
+
+        assertTrue(pair.isPresent());
+        assertEquals("high", pair.get().first().getUserId());
+        assertEquals(50, pair.get().ratingGap());
+        assertEquals(1, matchmaker.size());
+    }
+
+    @Test
+    void doesNotPairFreshPlayersFarApart() {
+        long now = System.nanoTime();
+        matchmaker.enqueue(ticket("veteran", 2400, now));
+
+        assertFalse(matchmaker.enqueue(ticket("rookie", 1000, now)).isPresent());
+        assertEquals(2, matchmaker.size());
+    }
+
+    @Test
+    void sweepPairsOnceGapHasWidened() {
+        long start = System.nanoTime();
+        matchmaker.enqueue(ticket("a", 1000, start));
+        matchmaker.enqueue(ticket("b", 1300, start));
+
+        assertTrue(matchmaker.sweep(start + 2 * SECOND).isEmpty());
+
+        List<MatchPair> pairs = matchmaker.sweep(start + 10 * SECOND);
+        assertEquals(1, pairs.size());
+        assertEquals(300, pairs.get(0).ratingGap());
+        assertEquals(10_000, pairs.get(0).firstWaitMillis());
+        assertEquals(0, matchmaker.size());
+    }
+
+    @Test
+    void cancelRemovesWaitingPlayer() {
+        matchmaker.enqueue(ticket("a", 1000, System.nanoTime()));
+
+        assertTrue(matchmaker.cancel("a"));
+        assertFalse(matchmaker.isQueued("a"));
+        assertFalse(matchmaker.enqueue(ticket("b", 1000, System.nanoTime())).isPresent());
+    }
+
+    @Test
+    void enqueueIsIdempotentPerUser() {
+        long now = System.nanoTime();
+        matchmaker.enqueue(ticket("a", 1000, now));
+
+        assertFalse(matchmaker.enqueue(ticket("a", 1000, now + 1)).isPresent());
+        assertEquals(1, matchmaker.size());
+    }
+
+    @Test
+    void cancelledTicketIsSkippedWhenPairing() {
+        long now = System.nanoTime();
+        matchmaker.enqueue(ticket("near", 990, now));
+        matchmaker.enqueue(ticket("far", 1095, now));
+        matchmaker.cancel("near");
+
+        Optional<MatchPair> pair = matchmaker.enqueue(ticket("b", 1000, now));
+
+        assertTrue(pair.isPresent());
+        assertEquals("far", pair.get().first().getUserId());
+        assertEquals(0, matchmaker.size());
+    }
+}
@@ -0,0 +1,90 @@
+package com.michaeldavidsim.ratedrps_server.matchmaking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+
+class WaitingQueueTest {
+
+    private final WaitingQueue waiting = new WaitingQueue();
+    private final MatchTicket ticket = new MatchTicket(new GamePlayer("a", "a"), 1000);
+
+    @Test
+    void releasedHoldGoesBackInTheQueue() {
+        waiting.enqueueIfAbsent(ticket);
+        assertTrue(waiting.hold(ticket));
+        assertFalse(waiting.contains("a"));
+
+        assertTrue(waiting.release(ticket));
+        assertTrue(waiting.isLive(ticket));
+        assertEquals(1, waiting.size());
+    }
+
+    @Test
+    void cancelWhileHeldIsNotUndoneByRelease() {
+        waiting.enqueueIfAbsent(ticket);
+        assertTrue(waiting.hold(ticket));
+
+        assertSame(ticket, waiting.cancel("a"));
+        assertFalse(waiting.release(ticket));
+        assertFalse(waiting.contains("a"));
+        assertEquals(0, waiting.size());
+    }
+
+    @Test
+    void cancelledTicketCannotBeHeld() {
+        waiting.enqueueIfAbsent(ticket);
+        waiting.cancel("a");
+
+        assertFalse(waiting.hold(ticket));
+        assertFalse(waiting.release(ticket));
+        assertFalse(waiting.contains("a"));
+    }
+
+    @Test
+    void holdCannotSlipInBetweenTheStepsOfACancel() throws Exception {
+        CountDownLatch cancelling = new CountDownLatch(1);
+        CountDownLatch held = new CountDownLatch(1);
+        // stalls cancel's removal until a concurrent hold has had every chance to land
+        WaitingQueue stalling = new WaitingQueue(new ConcurrentHashMap<>() {
+            @Override
+            public MatchTicket remove(Object key) {
+                cancelling.countDown();
+                try {
+                    held.await(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.remove(key);
+            }
+        });
+        stalling.enqueueIfAbsent(ticket);
+
+        Thread canceller = new Thread(() -> stalling.cancel("a"));
+        canceller.start();
+        assertTrue(cancelling.await(1, TimeUnit.SECONDS));
+        AtomicBoolean holdTaken = new AtomicBoolean();
+        Thread matcher = new Thread(() -> {
+            holdTaken.set(stalling.hold(ticket));
+            held.countDown();
+        });
+        matcher.start();
+        canceller.join(2000);
+        matcher.join(2000);
+
+        assertFalse(holdTaken.get());
+        assertFalse(stalling.release(ticket));
+        assertFalse(stalling.contains("a"));
+        assertEquals(0, stalling.size());
+    }
+}
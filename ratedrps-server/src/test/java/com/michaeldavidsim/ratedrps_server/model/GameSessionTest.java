@@ -0,0 +1,92 @@
+package com.michaeldavidsim.ratedrps_server.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.model.GameSession.MoveResult;
+
+class GameSessionTest {
+
+    private GameSession newGame() {
+        return new GameSession("game", new GamePlayer("p1", "one"), new GamePlayer("p2", "two"));
+    }
+
+    @Test
+    void outcomeTableMatchesRules() {
+        assertEquals(Move.FIRST_WINS, Move.outcome(Move.ROCK, Move.SCISSORS));
+        assertEquals(Move.FIRST_WINS, Move.outcome(Move.PAPER, Move.ROCK));
+        assertEquals(Move.FIRST_WINS, Move.outcome(Move.SCISSORS, Move.PAPER));
+        assertEquals(Move.SECOND_WINS, Move.outcome(Move.ROCK, Move.PAPER));
+        assertEquals(Move.DRAW, Move.outcome(Move.PAPER, Move.PAPER));
+    }
+
+    @Test
+    void secondMoveResolvesAndLaterMovesAreRejected() {
+        GameSession game = newGame();
+
+        assertEquals(MoveResult.RECORDED, game.submitMove("p1", Move.ROCK));
+        assertEquals(MoveResult.ALREADY_MOVED, game.submitMove("p1", Move.PAPER));
+        assertEquals(MoveResult.NOT_IN_GAME, game.submitMove("p3", Move.PAPER));
+        assertEquals(MoveResult.RESOLVED, game.submitMove("p2", Move.SCISSORS));
+        assertEquals(MoveResult.ALREADY_RESOLVED, game.submitMove("p2", Move.ROCK));
+        assertEquals("rock", game.getPlayer1Move());
+        assertEquals(Move.FIRST_WINS, game.getState().outcome());
+    }
+
+    @Test
+    void forfeitAwardsTheGameToThePlayerWhoMoved() {
+        GameSession game = newGame();
+        game.submitMove("p2", Move.PAPER);
+
+        assertTrue(game.forfeit());
+        assertEquals(Move.SECOND_WINS, game.getState().outcome());
+        assertEquals(MoveResult.ALREADY_RESOLVED, game.submitMove("p1", Move.SCISSORS));
+        assertFalse(game.forfeit());
+
+        GameSession idle = newGame();
+        assertTrue(idle.forfeit());
+        assertEquals(Move.DRAW, idle.getState().outcome());
+    }
+
+    @Test
+    void firstMoveIsTimestampedForMetrics() {
+        GameSession game = newGame();
+        assertEquals(0, game.getFirstMoveAtNanos());
+
+        game.submitMove("p1", Move.ROCK);
+        long firstMoveAt = game.getFirstMoveAtNanos();
+        assertTrue(firstMoveAt - game.getMatchedAtNanos() >= 0);
+
+        game.submitMove("p2", Move.PAPER);
+        assertEquals(firstMoveAt, game.getFirstMoveAtNanos());
+    }
+
+    @Test
+    void simultaneousMovesResolveExactlyOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                GameSession game = newGame();
+                CountDownLatch start = new CountDownLatch(1);
+                Future<MoveResult> first = pool.submit(() -> { start.await(); return game.submitMove("p1", Move.ROCK); });
+                Future<MoveResult> second = pool.submit(() -> { start.await(); return game.submitMove("p2", Move.PAPER); });
+                start.countDown();
+
+                int resolved = (first.get() == MoveResult.RESOLVED ? 1 : 0) + (second.get() == MoveResult.RESOLVED ? 1 : 0);
+                assertEquals(1, resolved);
+            }
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+}
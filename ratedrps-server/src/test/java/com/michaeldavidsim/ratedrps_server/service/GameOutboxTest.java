@@ -0,0 +1,123 @@
+package com.michaeldavidsim.ratedrps_server.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GameOutboxTest {
+
+    @TempDir
+    Path dir;
+
+    private GameOutbox openOutbox(int capacity) throws Exception {
+        GameOutbox outbox = new GameOutbox(dir.resolve("outbox.dat").toString(), capacity, 5, new SimpleMeterRegistry());
+        outbox.open();
+        return outbox;
+    }
+
+    private GameSession finishedGame(String gameId) {
+        GameSession session = new GameSession(gameId, new GamePlayer("p1", "one"), new GamePlayer("p2", "two"));
+        session.submitMove("p1", Move.ROCK);
+        session.submitMove("p2", Move.SCISSORS);
+        session.setResult("p1");
+        session.setPlayer1EloDelta(16);
+        session.setPlayer2EloDelta(-16);
+        return session;
+    }
+
+    @Test
+    void replaysUnacknowledgedGamesAfterRestart() throws Exception {
+        GameOutbox outbox = openOutbox(1 << 16);
+        outbox.record(finishedGame("done"));
+        outbox.record(finishedGame("half"));
+        outbox.record(finishedGame("untouched"));
+        outbox.ackStats(List.of("done", "half"), "p1");
+        outbox.ackStats(List.of("done"), "p2");
+        outbox.close();
+
+        GameOutbox reopened = openOutbox(1 << 16);
+        List<GameSession> replayed = reopened.claimRetryable();
+
+        assertEquals(2, replayed.size());
+        assertTrue(reopened.isStatsApplied("half", "p1"));
+        assertFalse(reopened.isStatsApplied("half", "p2"));
+
+        GameSession restored = replayed.stream().filter(g -> g.getGameId().equals("untouched")).findFirst().orElseThrow();
+        assertEquals("rock", restored.getPlayer1Move());
+        assertEquals("p1", restored.getResult());
+        assertEquals(-16, restored.getPlayer2EloDelta());
+        reopened.close();
+    }
+
+    @Test
+    void replaysForfeitedGamesWithTheMissingMove() throws Exception {
+        GameOutbox outbox = openOutbox(1 << 16);
+        GameSession forfeited = new GameSession("forfeit", new GamePlayer("p1", "one"), new GamePlayer("p2", "two"));
+        forfeited.submitMove("p1", Move.PAPER);
+        forfeited.forfeit();
+        forfeited.setResult("p1");
+        outbox.record(forfeited);
+        outbox.close();
+
+        GameOutbox reopened = openOutbox(1 << 16);
+        GameSession restored = reopened.claimRetryable().get(0);
+        assertTrue(restored.getState().isResolved());
+        assertEquals("paper", restored.getPlayer1Move());
+        assertEquals(null, restored.getPlayer2Move());
+        reopened.close();
+    }
+
+    @Test
+    void recordIsDeduplicatedByGameId() throws Exception {
+        GameOutbox outbox = openOutbox(1 << 16);
+
+        assertTrue(outbox.record(finishedGame("g")).get(5, TimeUnit.SECONDS));
+        assertFalse(outbox.record(finishedGame("g")).getNow(true));
+        assertEquals(1, outbox.pendingCount());
+        assertTrue(outbox.claimRetryable().isEmpty()); // still in flight from record()
+        outbox.close();
+    }
+
+    @Test
+    void recordCompletesOnlyOnceSynced() throws Exception {
+        GameOutbox outbox = new GameOutbox(dir.resolve("outbox.dat").toString(), 1 << 16, 60_000, new SimpleMeterRegistry());
+        outbox.open();
+
+        CompletableFuture<Boolean> synced = outbox.record(finishedGame("g"));
+        assertFalse(synced.isDone());
+
+        outbox.close(); // syncs what is left
+        assertTrue(synced.getNow(false));
+    }
+
+    @Test
+    void compactsWhenFullAndKeepsPendingGames() throws Exception {
+        GameOutbox outbox = openOutbox(4096);
+        outbox.record(finishedGame("keep"));
+        for (int i = 0; i < 200; i++) {
+            outbox.record(finishedGame("g" + i));
+            outbox.ackStats(List.of("g" + i), "p1");
+            outbox.ackStats(List.of("g" + i), "p2");
+        }
+        outbox.close();
+
+        GameOutbox reopened = openOutbox(4096);
+        assertEquals(1, reopened.pendingCount());
+        assertEquals("keep", reopened.claimRetryable().get(0).getGameId());
+        reopened.close();
+    }
+}
@@ -0,0 +1,170 @@
+package com.michaeldavidsim.ratedrps_server.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class GamePersistencePipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private GameOutbox outbox;
+    private GamePersistencePipeline pipeline;
+
+    // Supabase stand-in: rejects any insert containing a game in badGames, fails the
+    // first few calls with a 503, and rejects stats for users in badUsers
+    private static class FakeGameService extends GameService {
+
+        final Set<String> badGames = ConcurrentHashMap.newKeySet();
+        final Set<String> badUsers = ConcurrentHashMap.newKeySet();
+        final Set<String> inserted = ConcurrentHashMap.newKeySet();
+        final Set<String> statsApplied = ConcurrentHashMap.newKeySet();
+        final AtomicInteger unavailable = new AtomicInteger();
+        final AtomicInteger insertCalls = new AtomicInteger();
+        final AtomicInteger statsCalls = new AtomicInteger();
+
+        FakeGameService(SupabaseClientService clientService, UserService userService) {
+            super(clientService, userService, "http://localhost/rest/v1/game_matches");
+        }
+
+        @Override
+        public Mono<Void> saveMatchesToDatabase(List<GameSession> sessions) {
+            return Mono.defer(() -> {
+                insertCalls.incrementAndGet();
+                if (unavailable.getAndDecrement() > 0) return Mono.error(status(503));
+                if (sessions.stream().anyMatch(s -> badGames.contains(s.getGameId()))) return Mono.error(status(400));
+                sessions.forEach(s -> inserted.add(s.getGameId()));
+                return Mono.empty();
+            });
+        }
+
+        @Override
+        public Mono<Void> applyPlayerStats(PlayerStatsDelta delta) {
+            return Mono.defer(() -> {
+                statsCalls.incrementAndGet();
+                if (badUsers.contains(delta.userId())) return Mono.error(status(422));
+                statsApplied.add(delta.userId());
+                return Mono.empty();
+            });
+        }
+
+        private static WebClientResponseException status(int status) {
+            return WebClientResponseException.create(status, "status " + status, new HttpHeaders(), new byte[0], null);
+        }
+    }
+
+    private FakeGameService newGameService() {
+        SupabaseClientService clientService = mock(SupabaseClientService.class);
+        when(clientService.createAuthenticatedHeaders()).thenReturn(new HttpHeaders());
+        return new FakeGameService(clientService, mock(UserService.class));
+    }
+
+    private void start(FakeGameService gameService) throws Exception {
+        outbox = new GameOutbox(dir.resolve("outbox.dat").toString(), 1 << 16, 5, new SimpleMeterRegistry());
+        outbox.open();
+        pipeline = new GamePersistencePipeline(gameService, outbox, new SimpleMeterRegistry(),
+            100, 50, 20, 3, 1, 4, dir.resolve("dead-letters.jsonl").toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pipeline.stop();
+        outbox.close();
+    }
+
+    private static GameSession finishedGame(String gameId, String player1, String player2) {
+        GameSession session = new GameSession(gameId, new GamePlayer(player1, player1), new GamePlayer(player2, player2));
+        session.submitMove(player1, Move.ROCK);
+        session.submitMove(player2, Move.SCISSORS);
+        session.setResult(player1);
+        session.setPlayer1EloDelta(16);
+        session.setPlayer2EloDelta(-16);
+        return session;
+    }
+
+    private void awaitDrained() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (outbox.pendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, outbox.pendingCount());
+    }
+
+    private List<String> deadLetters() throws Exception {
+        Path file = dir.resolve("dead-letters.jsonl");
+        return Files.exists(file) ? Files.readAllLines(file) : new ArrayList<>();
+    }
+
+    @Test
+    void rejectedRowIsSplitOutOfTheBatchAndDeadLettered() throws Exception {
+        FakeGameService gameService = newGameService();
+        gameService.badGames.add("g5");
+        start(gameService);
+
+        // all queued before the worker starts, so they go out as one batch
+        for (int i = 0; i < 8; i++) {
+            pipeline.submit(finishedGame("g" + i, "a" + i, "b" + i));
+        }
+        pipeline.start();
+        awaitDrained();
+
+        assertEquals(7, gameService.inserted.size());
+        assertFalse(gameService.inserted.contains("g5"));
+        assertFalse(gameService.statsApplied.contains("a5"));
+        assertTrue(gameService.statsApplied.contains("a4"));
+        // 1 + 2 + 2 + 2 halvings for 8 rows, never a retry of a 400
+        assertEquals(7, gameService.insertCalls.get());
+
+        List<String> deadLetters = deadLetters();
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"stage\":\"insert\""));
+        assertTrue(deadLetters.get(0).contains("g5"));
+    }
+
+    @Test
+    void serverErrorsAreRetriedButRejectedStatsAreNot() throws Exception {
+        FakeGameService gameService = newGameService();
+        gameService.unavailable.set(2);
+        gameService.badUsers.add("b1");
+        start(gameService);
+
+        pipeline.start();
+        pipeline.submit(finishedGame("g1", "a1", "b1"));
+        awaitDrained();
+
+        assertEquals(Set.of("g1"), gameService.inserted);
+        assertEquals(3, gameService.insertCalls.get());
+        assertEquals(Set.of("a1"), gameService.statsApplied);
+        assertEquals(2, gameService.statsCalls.get());
+
+        List<String> deadLetters = deadLetters();
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"stage\":\"stats\""));
+        assertTrue(deadLetters.get(0).contains("\"userId\":\"b1\""));
+    }
+}
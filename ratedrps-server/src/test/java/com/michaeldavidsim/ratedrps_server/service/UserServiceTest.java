@@ -0,0 +1,63 @@
+package com.michaeldavidsim.ratedrps_server.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.model.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserServiceTest {
+
+    private final UserStatsBatchLoader batchLoader = mock(UserStatsBatchLoader.class);
+    private final UserService userService = new UserService(mock(SupabaseClientService.class), batchLoader,
+        new SimpleMeterRegistry(), "http://localhost/rest/v1/users", "http://localhost/rest/v1/rpc/increment_user_stats",
+        100, 300);
+
+    private static User user(String id, int elo) {
+        User user = new User();
+        user.setId(id);
+        user.setElo(elo);
+        return user;
+    }
+
+    @Test
+    void submittedGameIsReflectedInTheCachedRatingBeforeItIsPersisted() {
+        when(batchLoader.load("a")).thenReturn(CompletableFuture.completedFuture(user("a", 1000)));
+        assertEquals(1000, userService.getUserStats("a").getElo());
+
+        userService.applyCachedStats("a", 1, 0, 0, 16);
+
+        User cached = userService.getUserStats("a");
+        assertEquals(1016, cached.getElo());
+        assertEquals(1, cached.getWins());
+        verify(batchLoader, times(1)).load("a");
+    }
+
+    @Test
+    void pendingLoadTakesTheDeltaWhenItCompletes() {
+        CompletableFuture<User> loading = new CompletableFuture<>();
+        when(batchLoader.load("a")).thenReturn(loading);
+        userService.getUserStatsAsync("a");
+
+        userService.applyCachedStats("a", 0, 1, 0, -16);
+        loading.complete(user("a", 1000));
+
+        assertEquals(984, userService.getUserStats("a").getElo());
+    }
+
+    @Test
+    void uncachedUserIsLeftToTheNextLoad() {
+        userService.applyCachedStats("a", 1, 0, 0, 16);
+        when(batchLoader.load("a")).thenReturn(CompletableFuture.completedFuture(user("a", 1016)));
+
+        assertEquals(1016, userService.getUserStats("a").getElo());
+    }
+}
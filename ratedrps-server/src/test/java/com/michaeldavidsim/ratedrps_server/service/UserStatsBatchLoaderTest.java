@@ -0,0 +1,90 @@
+package com.michaeldavidsim.ratedrps_server.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.model.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+class UserStatsBatchLoaderTest {
+
+    private static final String ALICE = "00000000-0000-0000-0000-00000000000a";
+    private static final String BOB = "00000000-0000-0000-0000-00000000000b";
+    private static final String MISSING = "00000000-0000-0000-0000-00000000000c";
+
+    private final List<List<String>> fetched = new CopyOnWriteArrayList<>();
+
+    // answers from a fixed set of users instead of Supabase
+    private final UserStatsBatchLoader loader = new UserStatsBatchLoader(mock(SupabaseClientService.class),
+            new SimpleMeterRegistry(), "http://localhost/rest/v1/users", 20, 100) {
+        @Override
+        public Flux<User> fetchUsers(List<String> userIds) {
+            fetched.add(userIds);
+            return Flux.fromIterable(userIds)
+                .filter(id -> Set.of(ALICE, BOB).contains(id))
+                .map(UserStatsBatchLoaderTest::user);
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        loader.shutdown();
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static User await(CompletableFuture<User> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void concurrentLoadsShareOneBatchedFetch() throws Exception {
+        CompletableFuture<User> alice = loader.load(ALICE);
+        CompletableFuture<User> aliceAgain = loader.load(ALICE);
+        CompletableFuture<User> bob = loader.load(BOB);
+
+        assertSame(alice, aliceAgain);
+        assertEquals(ALICE, await(alice).getId());
+        assertEquals(BOB, await(bob).getId());
+        assertEquals(List.of(List.of(ALICE, BOB)), fetched);
+    }
+
+    @Test
+    void malformedIdIsRefusedWithoutJoiningTheBatch() throws Exception {
+        CompletableFuture<User> injected = loader.load(ALICE + ",role.eq.admin");
+        CompletableFuture<User> alice = loader.load(ALICE);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> await(injected));
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertEquals(ALICE, await(alice).getId());
+        assertEquals(List.of(List.of(ALICE)), fetched);
+    }
+
+    @Test
+    void userMissingFromTheResponseFailsOnlyItsOwnLoad() throws Exception {
+        CompletableFuture<User> missing = loader.load(MISSING);
+        CompletableFuture<User> bob = loader.load(BOB);
+
+        assertThrows(ExecutionException.class, () -> await(missing));
+        assertEquals(BOB, await(bob).getId());
+    }
+}
@@ -0,0 +1,58 @@
+package com.michaeldavidsim.ratedrps_server.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.timer.HashedTimingWheel.Timeout;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void firesNoEarlierThanTheDeadline() throws Exception {
+        try (HashedTimingWheel wheel = new HashedTimingWheel("test-timers", 5, 8, Runnable::run)) {
+            CountDownLatch fired = new CountDownLatch(1);
+            long start = System.nanoTime();
+            long[] firedAfter = new long[1];
+            // longer than one revolution (8 x 5ms), so it has to wait out a round
+            Timeout timeout = wheel.schedule(() -> {
+                firedAfter[0] = System.nanoTime() - start;
+                fired.countDown();
+            }, 60, TimeUnit.MILLISECONDS);
+
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+            assertTrue(firedAfter[0] >= TimeUnit.MILLISECONDS.toNanos(60));
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.cancel());
+        }
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() throws Exception {
+        try (HashedTimingWheel wheel = new HashedTimingWheel("test-timers", 5, 8, Runnable::run)) {
+            AtomicInteger fired = new AtomicInteger();
+            List<Timeout> timeouts = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                timeouts.add(wheel.schedule(fired::incrementAndGet, 20 + i % 50, TimeUnit.MILLISECONDS));
+            }
+            for (int i = 0; i < timeouts.size(); i += 2) {
+                assertTrue(timeouts.get(i).cancel());
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (wheel.getPendingCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, wheel.getPendingCount());
+            assertEquals(500, fired.get());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+
+class BinaryFrameCodecTest {
+
+    private final BinaryFrameCodec codec = new BinaryFrameCodec();
+    private final UUID opponentId = UUID.randomUUID();
+
+    private GameSession newGame() {
+        GameSession game = new GameSession("game",
+            new GamePlayer(UUID.randomUUID().toString(), "one"),
+            new GamePlayer(opponentId.toString(), "twö"));
+        game.setHandle(42);
+        return game;
+    }
+
+    @Test
+    void matchFoundCarriesHandleSeatAndOpponent() {
+        ByteBuffer frame = codec.matchFound(newGame(), true).getPayload();
+
+        assertEquals(BinaryFrameCodec.MATCH_FOUND, frame.get());
+        assertEquals(42, frame.getInt());
+        assertEquals(1, frame.get());
+        assertEquals(opponentId.toString(), BinaryFrameCodec.readString(frame));
+        assertEquals("twö", BinaryFrameCodec.readString(frame));
+        assertEquals(0, frame.remaining());
+    }
+
+    @Test
+    void matchFoundAcceptsOpponentIdsThatAreNotUuids() {
+        GameSession game = new GameSession("game",
+            new GamePlayer("auth0|one", "one"), new GamePlayer("github|two", "two"));
+        game.setHandle(7);
+
+        ByteBuffer frame = codec.matchFound(game, false).getPayload();
+
+        assertEquals(BinaryFrameCodec.MATCH_FOUND, frame.get());
+        assertEquals(7, frame.getInt());
+        assertEquals(2, frame.get());
+        assertEquals("auth0|one", BinaryFrameCodec.readString(frame));
+        assertEquals("one", BinaryFrameCodec.readString(frame));
+        assertEquals(0, frame.remaining());
+    }
+
+    @Test
+    void finalGameUpdateCarriesMovesResultAndDeltas() {
+        GameSession game = newGame();
+        game.submitMove(game.getPlayer1Id(), Move.ROCK);
+        game.submitMove(game.getPlayer2Id(), Move.PAPER);
+        game.setPlayer1EloDelta(-16);
+        game.setPlayer2EloDelta(16);
+
+        ByteBuffer frame = codec.gameUpdate(game, true).getPayload();
+
+        assertEquals(BinaryFrameCodec.GAME_UPDATE, frame.get());
+        assertEquals(42, frame.getInt());
+        assertEquals(1, frame.get());
+        assertEquals(Move.ROCK.code(), frame.get());
+        assertEquals(Move.PAPER.code(), frame.get());
+        assertEquals(Move.SECOND_WINS, frame.get());
+        assertEquals(-16, frame.getShort());
+        assertEquals(16, frame.getShort());
+        assertEquals(0, frame.remaining());
+    }
+
+    @Test
+    void pendingGameUpdateMarksTheMissingMove() {
+        GameSession game = newGame();
+        game.submitMove(game.getPlayer2Id(), Move.SCISSORS);
+
+        ByteBuffer frame = codec.gameUpdate(game, false).getPayload();
+
+        frame.position(6);
+        assertEquals((byte) 0xFF, frame.get());
+        assertEquals(Move.SCISSORS.code(), frame.get());
+        assertEquals(0, frame.get());
+        assertEquals(0, frame.remaining());
+    }
+}
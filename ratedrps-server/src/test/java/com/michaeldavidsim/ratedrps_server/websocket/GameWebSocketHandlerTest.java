@@ -0,0 +1,205 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.michaeldavidsim.ratedrps_server.matchmaking.EloBandedMatchmaker;
+import com.michaeldavidsim.ratedrps_server.matchmaking.Matchmaker;
+import com.michaeldavidsim.ratedrps_server.model.User;
+import com.michaeldavidsim.ratedrps_server.service.EloService;
+import com.michaeldavidsim.ratedrps_server.service.GamePersistencePipeline;
+import com.michaeldavidsim.ratedrps_server.service.UserService;
+import com.michaeldavidsim.ratedrps_server.timer.HashedTimingWheel;
+
+class GameWebSocketHandlerTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final HashedTimingWheel timers = new HashedTimingWheel("test-timers", 10, 64, executor);
+    private final Matchmaker matchmaker = new EloBandedMatchmaker(100, 25, 600);
+    private final OutboundSessions outbound = mock(OutboundSessions.class);
+    private final GamePersistencePipeline persistencePipeline = mock(GamePersistencePipeline.class);
+    private final CompletableFuture<Void> gameSynced = new CompletableFuture<>();
+    // session id -> text frames sent to it
+    private final Map<String, List<String>> sent = new ConcurrentHashMap<>();
+    private final GameWebSocketHandler handler = new GameWebSocketHandler();
+
+    @BeforeEach
+    void setUp() {
+        UserService userService = mock(UserService.class);
+        User user = new User();
+        user.setElo(EloService.DEFAULT_RATING);
+        when(userService.getUserStatsAsync(any())).thenReturn(CompletableFuture.completedFuture(user));
+
+        InboundLimits inboundLimits = mock(InboundLimits.class);
+        when(inboundLimits.allow(any(), any())).thenReturn(true);
+
+        when(outbound.isLive(any(), anyLong())).thenReturn(true);
+        when(outbound.send(any(), any(), any())).thenAnswer(invocation -> {
+            WebSocketSession session = invocation.getArgument(0);
+            WebSocketMessage<?> message = invocation.getArgument(1);
+            if (message instanceof TextMessage text) {
+                sent.computeIfAbsent(session.getId(), id -> new CopyOnWriteArrayList<>()).add(text.getPayload());
+            }
+            return true;
+        });
+        when(persistencePipeline.submit(any())).thenReturn(gameSynced);
+
+        ReflectionTestUtils.setField(handler, "eloService", new EloService());
+        ReflectionTestUtils.setField(handler, "persistencePipeline", persistencePipeline);
+        ReflectionTestUtils.setField(handler, "userService", userService);
+        ReflectionTestUtils.setField(handler, "matchmaker", matchmaker);
+        ReflectionTestUtils.setField(handler, "lobbyUpdates", mock(LobbyUpdatePublisher.class));
+        ReflectionTestUtils.setField(handler, "gameHandlerExecutor", executor);
+        ReflectionTestUtils.setField(handler, "outbound", outbound);
+        ReflectionTestUtils.setField(handler, "encoders", new FrameEncoders(new JsonFrameEncoder(), new BinaryFrameCodec()));
+        ReflectionTestUtils.setField(handler, "inboundDecoder", new JsonInboundDecoder());
+        ReflectionTestUtils.setField(handler, "metrics", mock(GameMetrics.class));
+        ReflectionTestUtils.setField(handler, "inboundLimits", inboundLimits);
+        ReflectionTestUtils.setField(handler, "gameTimers", timers);
+        ReflectionTestUtils.setField(handler, "moveTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(handler, "lobbyIdleTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(handler, "reconnectGraceMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timers.close();
+        executor.shutdownNow();
+    }
+
+    // a connection whose handshake token named userId
+    private WebSocketSession connect(String sessionId, String userId) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        attributes.put("userId", userId);
+        when(session.getId()).thenReturn(sessionId);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(attributes);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private void joinLobby(WebSocketSession session, String userId) throws Exception {
+        handler.handleMessage(session, new TextMessage(
+            "{\"type\":\"JOIN_LOBBY\",\"userId\":\"" + userId + "\",\"username\":\"" + userId + "\"}"));
+        // matching is handed off to the executor once the rating lookup completes
+        executor.submit(() -> { }).get();
+    }
+
+    private void makeMove(WebSocketSession session, String userId, String gameId, String move) throws Exception {
+        handler.handleMessage(session, new TextMessage(
+            "{\"type\":\"MAKE_MOVE\",\"userId\":\"" + userId + "\",\"gameId\":\"" + gameId + "\",\"move\":\"" + move + "\"}"));
+    }
+
+    private List<String> framesTo(WebSocketSession session) {
+        return sent.getOrDefault(session.getId(), List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> userGameMap() {
+        return (Map<String, String>) ReflectionTestUtils.getField(handler, "userGameMap");
+    }
+
+    @Test
+    void reconnectingPlayerWhoRejoinsTheLobbyIsResumedNotRematched() throws Exception {
+        WebSocketSession alice = connect("s1", "alice");
+        WebSocketSession bob = connect("s2", "bob");
+        joinLobby(alice, "alice");
+        joinLobby(bob, "bob");
+        String gameId = userGameMap().get("alice");
+        assertNotNull(gameId);
+
+        handler.afterConnectionClosed(alice, CloseStatus.GOING_AWAY);
+        WebSocketSession carol = connect("s3", "carol");
+        joinLobby(carol, "carol");
+
+        // the client always rejoins the lobby after reconnecting
+        WebSocketSession aliceAgain = connect("s4", "alice");
+        joinLobby(aliceAgain, "alice");
+
+        assertEquals(gameId, userGameMap().get("alice"));
+        assertEquals(gameId, userGameMap().get("bob"));
+        assertFalse(userGameMap().containsKey("carol"));
+        assertFalse(matchmaker.isQueued("alice"));
+        assertTrue(matchmaker.isQueued("carol"));
+        assertTrue(framesTo(aliceAgain).stream().allMatch(frame -> !frame.contains("MATCH_FOUND") || frame.contains(gameId)));
+        assertEquals(1, framesTo(aliceAgain).stream().filter(frame -> frame.contains("MATCH_FOUND")).count());
+    }
+
+    @Test
+    void finalResultIsSentOnlyOnceTheGameIsSynced() throws Exception {
+        WebSocketSession alice = connect("s1", "alice");
+        WebSocketSession bob = connect("s2", "bob");
+        joinLobby(alice, "alice");
+        joinLobby(bob, "bob");
+        String gameId = userGameMap().get("alice");
+
+        makeMove(alice, "alice", gameId, "rock");
+        makeMove(bob, "bob", gameId, "scissors");
+        executor.submit(() -> { }).get();
+        assertFalse(framesTo(alice).stream().anyMatch(frame -> frame.contains("\"isFinal\":true")));
+
+        gameSynced.complete(null);
+        executor.submit(() -> { }).get();
+        assertTrue(framesTo(alice).stream().anyMatch(frame -> frame.contains("\"isFinal\":true")));
+        assertTrue(framesTo(bob).stream().anyMatch(frame -> frame.contains("\"isFinal\":true")));
+    }
+
+    @Test
+    void staleOpponentFoundAtMatchTimeIsClosedNotJustForgotten() throws Exception {
+        WebSocketSession alice = connect("s1", "alice");
+        WebSocketSession bob = connect("s2", "bob");
+        joinLobby(alice, "alice");
+        when(outbound.isLive(eq(alice), anyLong())).thenReturn(false);
+
+        joinLobby(bob, "bob");
+
+        verify(outbound).close(eq(alice), any());
+        assertFalse(matchmaker.isQueued("alice"));
+        assertTrue(matchmaker.isQueued("bob"));
+        assertFalse(userGameMap().containsKey("bob"));
+    }
+
+    @Test
+    void payloadCannotActAsAnotherUser() throws Exception {
+        WebSocketSession alice = connect("s1", "alice");
+        WebSocketSession mallory = connect("s2", "mallory");
+
+        joinLobby(mallory, "alice");
+
+        assertTrue(framesTo(mallory).stream().anyMatch(frame -> frame.contains("userId does not match token")));
+        assertFalse(matchmaker.isQueued("alice"));
+        assertEquals("mallory", mallory.getAttributes().get("userId"));
+
+        // alice's own connection still owns her state and cleans it up on close
+        joinLobby(alice, "alice");
+        assertTrue(matchmaker.isQueued("alice"));
+        handler.afterConnectionClosed(alice, CloseStatus.GOING_AWAY);
+        assertFalse(matchmaker.isQueued("alice"));
+    }
+}
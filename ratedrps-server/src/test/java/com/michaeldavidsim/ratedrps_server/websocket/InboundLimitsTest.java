@@ -0,0 +1,63 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.michaeldavidsim.ratedrps_server.websocket.InboundLimits.Check;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InboundLimitsTest {
+
+    private final OutboundSessions outbound = mock(OutboundSessions.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private WebSocketSession session;
+    private InboundLimits limits;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        // slow refill so the bursts are all that is available during the test
+        limits = new InboundLimits(outbound, registry, 4096, 0.01, 10, 0.01, 2, 0.01, 1, 3, 60_000);
+        limits.bind(session);
+    }
+
+    @Test
+    void allowsTheBurstThenRejectsPerLimit() {
+        assertTrue(limits.allow(session, Check.LOBBY));
+        assertTrue(limits.allow(session, Check.LOBBY));
+        assertFalse(limits.allow(session, Check.LOBBY));
+
+        // the move bucket is separate from the lobby one
+        assertTrue(limits.allow(session, Check.MOVE));
+        assertEquals(1.0, registry.get("ratedrps.ws.inbound.rejected").tag("limit", "lobby").counter().count());
+        verify(session).setTextMessageSizeLimit(4096);
+    }
+
+    @Test
+    void closesConnectionsThatKeepFlooding() {
+        for (int i = 0; i < 10; i++) limits.allow(session, Check.FRAME);
+        for (int i = 0; i < 3; i++) assertFalse(limits.allow(session, Check.FRAME));
+        verify(outbound, never()).close(any(), any());
+
+        assertFalse(limits.allow(session, Check.FRAME));
+        verify(outbound).close(eq(session), any(CloseStatus.class));
+        assertEquals(1.0, registry.get("ratedrps.ws.inbound.flood-closed").counter().count());
+    }
+}
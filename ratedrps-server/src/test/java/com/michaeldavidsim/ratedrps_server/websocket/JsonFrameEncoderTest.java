@@ -0,0 +1,68 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michaeldavidsim.ratedrps_server.model.GamePlayer;
+import com.michaeldavidsim.ratedrps_server.model.GameSession;
+import com.michaeldavidsim.ratedrps_server.model.Move;
+
+class JsonFrameEncoderTest {
+
+    private final JsonFrameEncoder encoder = new JsonFrameEncoder();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private GameSession newGame() {
+        return new GameSession("g1", new GamePlayer("p1", "one"), new GamePlayer("p2", "two"));
+    }
+
+    private Map<String, Object> parse(String json) throws Exception {
+        return mapper.readValue(json, new TypeReference<Map<String, Object>>() { });
+    }
+
+    @Test
+    void framesKeepTheJsonWireFormat() throws Exception {
+        assertEquals(Map.of("type", "LOBBY_UPDATE", "playersWaiting", 3),
+            parse(encoder.lobbyUpdate(3).getPayload()));
+        assertEquals(Map.of("type", "ERROR", "message", "Game not found"),
+            parse(encoder.error("Game not found").getPayload()));
+        assertEquals(Map.of("type", "MATCH_FOUND",
+                "data", Map.of("gameId", "g1", "opponentId", "p1", "opponentUsername", "one")),
+            parse(encoder.matchFound(newGame(), false).getPayload()));
+    }
+
+    @Test
+    void gameUpdateOmitsUnsetFieldsUntilFinal() throws Exception {
+        GameSession game = newGame();
+        game.submitMove("p1", Move.ROCK);
+        assertEquals(Map.of("type", "GAME_UPDATE", "isFinal", false,
+                "data", Map.of("player1Id", "p1", "player2Id", "p2", "player1Move", "rock")),
+            parse(encoder.gameUpdate(game, false).getPayload()));
+
+        game.submitMove("p2", Move.SCISSORS);
+        game.setResult("p1");
+        game.setPlayer1EloDelta(16);
+        game.setPlayer2EloDelta(-16);
+        JsonNode data = mapper.readTree(encoder.gameUpdate(game, true).getPayload()).get("data");
+        assertEquals("p1", data.get("result").asText());
+        assertEquals(16, data.get("player1EloDelta").asInt());
+        assertEquals(-16, data.get("player2EloDelta").asInt());
+    }
+
+    @Test
+    void repeatedPayloadsReuseTheSameFrame() throws Exception {
+        assertSame(encoder.lobbyUpdate(7), encoder.lobbyUpdate(7));
+        assertSame(encoder.error("Move already made"), encoder.error("Move already made"));
+        assertNotSame(encoder.error("Unknown message type: X"), encoder.error("Unknown message type: X"));
+        assertFalse(encoder.gameUpdate(newGame(), false) == encoder.gameUpdate(newGame(), false));
+    }
+}
@@ -0,0 +1,43 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.michaeldavidsim.ratedrps_server.model.Move;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.JoinLobby;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.LeaveLobby;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.MakeMove;
+import com.michaeldavidsim.ratedrps_server.websocket.InboundMessage.Unknown;
+
+class JsonInboundDecoderTest {
+
+    private final JsonInboundDecoder decoder = new JsonInboundDecoder();
+
+    @Test
+    void decodesEachMessageTypeWhateverTheFieldOrder() throws IOException {
+        assertEquals(new JoinLobby("u1", "alice"),
+            decoder.decode("{\"username\":\"alice\",\"type\":\"JOIN_LOBBY\",\"userId\":\"u1\"}"));
+        assertEquals(new LeaveLobby("u1"),
+            decoder.decode("{\"type\":\"LEAVE_LOBBY\",\"userId\":\"u1\"}"));
+        assertEquals(new MakeMove("u1", "g1", Move.SCISSORS),
+            decoder.decode("{\"type\":\"MAKE_MOVE\",\"userId\":\"u1\",\"gameId\":\"g1\",\"move\":\"scissors\"}"));
+    }
+
+    @Test
+    void skipsUnknownAndNonStringFields() throws IOException {
+        assertEquals(new MakeMove("u1", null, null),
+            decoder.decode("{\"type\":\"MAKE_MOVE\",\"extra\":{\"a\":[1,2]},\"userId\":\"u1\",\"gameId\":7,\"move\":\"lizard\"}"));
+    }
+
+    @Test
+    void reportsUnknownTypesAndRejectsMalformedFrames() throws IOException {
+        assertEquals(new Unknown("PING"), decoder.decode("{\"type\":\"PING\"}"));
+        assertEquals(new Unknown(null), decoder.decode("{}"));
+        assertThrows(IOException.class, () -> decoder.decode("[\"JOIN_LOBBY\"]"));
+        assertThrows(IOException.class, () -> decoder.decode("{\"type\":\"JOIN_LOBBY\""));
+    }
+}
@@ -0,0 +1,94 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LobbyUpdatePublisherTest {
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final OutboundSessions outbound =
+        new OutboundSessions(writer, new SimpleMeterRegistry(), 64, 65536, 5000, 60_000, 1);
+    private final LobbyUpdatePublisher publisher =
+        new LobbyUpdatePublisher(outbound, new FrameEncoders(new JsonFrameEncoder(), new BinaryFrameCodec()));
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(new ConcurrentHashMap<>());
+        outbound.register(session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdownNow();
+    }
+
+    @Test
+    void sendsOnlyWhenDirtyAndTheCountChanged() throws Exception {
+        publisher.flush(3, List.of(session));
+        verify(session, after(100).never()).sendMessage(any());
+
+        publisher.markDirty();
+        publisher.flush(3, List.of(session));
+        verify(session, timeout(1000)).sendMessage(any(TextMessage.class));
+
+        publisher.markDirty();
+        publisher.flush(3, List.of(session));
+        verify(session, after(100).times(1)).sendMessage(any());
+
+        publisher.markDirty();
+        publisher.flush(4, List.of(session));
+        verify(session, timeout(1000).times(2)).sendMessage(any());
+    }
+
+    @Test
+    void rejoiningPlayerIsSentTheCountAgain() throws Exception {
+        publisher.markDirty();
+        publisher.flush(3, List.of(session));
+        verify(session, timeout(1000)).sendMessage(any());
+
+        publisher.forget(session);
+        publisher.markDirty();
+        publisher.flush(3, List.of(session));
+        verify(session, timeout(1000).times(2)).sendMessage(any());
+    }
+
+    @Test
+    void framesAreWrittenByTheSessionWriterNotTheFlushingThread() throws Exception {
+        AtomicReference<Thread> sender = new AtomicReference<>();
+        doAnswer(invocation -> {
+            sender.set(Thread.currentThread());
+            return null;
+        }).when(session).sendMessage(any());
+
+        publisher.markDirty();
+        publisher.flush(3, List.of(session));
+
+        verify(session, timeout(1000)).sendMessage(any());
+        assertNotSame(Thread.currentThread(), sender.get());
+    }
+}
@@ -0,0 +1,107 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+class OutboundSessionTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final List<String> sent = new ArrayList<>();
+    private final List<String> slow = new ArrayList<>();
+    private int dropped;
+
+    private WebSocketSession session;
+    private OutboundSession outbound;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            sent.add((String) message.getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+
+        outbound = new OutboundSession(session, tasks::add, 2, 1024, TimeUnit.SECONDS.toNanos(5),
+            new OutboundSession.Listener() {
+                @Override
+                public void onDropped(WebSocketSession s) { dropped++; }
+
+                @Override
+                public void onSlowConsumer(WebSocketSession s, String reason) { slow.add(reason); }
+            });
+    }
+
+    private void runWriter() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) task.run();
+    }
+
+    @Test
+    void framesAreWrittenInOrderByOneWriter() {
+        outbound.send(new TextMessage("a"), DeliveryPolicy.REQUIRED);
+        outbound.send(new TextMessage("b"), DeliveryPolicy.REQUIRED);
+
+        assertEquals(1, tasks.size());
+        runWriter();
+        assertEquals(List.of("a", "b"), sent);
+    }
+
+    @Test
+    void staleLobbyUpdatesAreReplaced() {
+        outbound.send(new TextMessage("lobby-1"), DeliveryPolicy.LATEST_ONLY);
+        outbound.send(new TextMessage("lobby-2"), DeliveryPolicy.LATEST_ONLY);
+        outbound.send(new TextMessage("lobby-3"), DeliveryPolicy.LATEST_ONLY);
+
+        runWriter();
+        assertEquals(List.of("lobby-3"), sent);
+    }
+
+    @Test
+    void lobbyUpdateSetBeforeAMatchGoesOutAheadOfIt() {
+        outbound.send(new TextMessage("lobby-1"), DeliveryPolicy.LATEST_ONLY);
+        outbound.send(new TextMessage("lobby-2"), DeliveryPolicy.LATEST_ONLY);
+        outbound.send(new TextMessage("match-found"), DeliveryPolicy.REQUIRED);
+
+        runWriter();
+        assertEquals(List.of("lobby-2", "match-found"), sent);
+    }
+
+    @Test
+    void fullBufferDropsDroppableFramesAndDisconnectsOnRequiredOnes() throws Exception {
+        assertTrue(outbound.send(new TextMessage("game-1"), DeliveryPolicy.REQUIRED));
+        assertTrue(outbound.send(new TextMessage("game-2"), DeliveryPolicy.REQUIRED));
+
+        assertFalse(outbound.send(new TextMessage("error"), DeliveryPolicy.DROPPABLE));
+        assertEquals(1, dropped);
+        assertTrue(slow.isEmpty());
+
+        assertFalse(outbound.send(new TextMessage("game-3"), DeliveryPolicy.REQUIRED));
+        assertEquals(List.of("outbound buffer full"), slow);
+
+        runWriter();
+        assertTrue(sent.isEmpty());
+        verify(session).close(any(CloseStatus.class));
+    }
+}
@@ -0,0 +1,75 @@
+package com.michaeldavidsim.ratedrps_server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboundSessionsTest {
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdownNow();
+    }
+
+    private OutboundSessions newSessions(long heartbeatTimeoutMs) {
+        return new OutboundSessions(writer, new SimpleMeterRegistry(), 64, 65536, 5000, heartbeatTimeoutMs, 1);
+    }
+
+    private WebSocketSession openSession(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    @Test
+    void heartbeatPingsResponsiveConnections() throws Exception {
+        OutboundSessions sessions = newSessions(60_000);
+        WebSocketSession session = openSession("s1");
+        sessions.register(session);
+
+        sessions.heartbeat();
+
+        verify(session, timeout(1000)).sendMessage(any(PingMessage.class));
+        verify(session, never()).close(any(CloseStatus.class));
+        assertTrue(sessions.isLive(session, System.nanoTime()));
+    }
+
+    @Test
+    void heartbeatClosesSilentConnectionsAndReportsThemFirst() throws Exception {
+        OutboundSessions sessions = newSessions(0);
+        List<String> stale = new ArrayList<>();
+        sessions.setStaleListener(s -> stale.add(s.getId()));
+        WebSocketSession session = openSession("s1");
+        sessions.register(session);
+        Thread.sleep(5);
+
+        assertFalse(sessions.isLive(session, System.nanoTime()));
+        sessions.heartbeat();
+
+        assertEquals(List.of("s1"), stale);
+        verify(session, timeout(1000)).close(any(CloseStatus.class));
+        verify(session, never()).sendMessage(any(PingMessage.class));
+    }
+}